@@ -0,0 +1,78 @@
+#!/usr/bin/env bash
+# Startup time and memory of the backend build variants, for judging scale-to-zero cold starts.
+#
+# Each variant that has been built is started RUNS times. Per run it records the time until
+# /actuator/health answers UP, the time until the first POST /api/mock response (which also
+# covers the first-request class loading), and the resident set size right after that request.
+# Medians are printed per variant.
+#
+#   mvn -DskipTests package                  -> jar
+#   mvn -Paot -DskipTests package            -> jar+aot (AOT classes inside the jar)
+#   mvn -Paot,cds -DskipTests package        -> cds (target/app with app.jsa; AOT if built with it)
+#   mvn -Pnative -DskipTests native:compile  -> native (target/moodify-backend)
+#
+# Usage: scripts/startup-benchmark.sh [runs]   (env: PORT, default 18180)
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS="${1:-5}"
+PORT="${PORT:-18180}"
+JAR=target/moodify-backend-0.0.1-SNAPSHOT.jar
+export GEMINI_API_KEY="${GEMINI_API_KEY:-startup-benchmark}"
+
+# Keep runs independent: no warm snapshots, no background pool refresh
+APP_ARGS=(--server.port="$PORT" --moodify.youtube.cache.snapshot-file= --moodify.pools.snapshot-file= --moodify.pools.enabled=false)
+
+now_ms() { date +%s%3N; }
+
+# Not grep -q: closing the pipe early would fail unzip under pipefail
+has_aot() { unzip -l "$1" 2>/dev/null | grep '__ApplicationContextInitializer' >/dev/null; }
+
+median() { sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'; }
+
+# One run: prints "<health ms> <first request ms> <rss KiB>"
+run_once() {
+    local start pid health first rss
+    start=$(now_ms)
+    "$@" "${APP_ARGS[@]}" >/dev/null 2>&1 &
+    pid=$!
+    until curl -fs "http://127.0.0.1:$PORT/actuator/health" 2>/dev/null | grep -q '"UP"'; do
+        if ! kill -0 "$pid" 2>/dev/null; then echo "process exited during startup: $*" >&2; return 1; fi
+        sleep 0.01
+    done
+    health=$(( $(now_ms) - start ))
+    curl -fs -o /dev/null -X POST -H 'Content-Type: application/json' \
+        -d '{"mood":"Happy","era":"New","language":"Hindi","feeling":"benchmark"}' \
+        "http://127.0.0.1:$PORT/api/mock"
+    first=$(( $(now_ms) - start ))
+    rss=$(awk '/^VmRSS:/ { print $2 }' "/proc/$pid/status")
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$health $first $rss"
+}
+
+bench() {
+    local name="$1"; shift
+    local results=() i
+    for ((i = 0; i < RUNS; i++)); do
+        results+=("$(run_once "$@")")
+    done
+    printf '%-10s %12s %16s %10s\n' "$name" \
+        "$(printf '%s\n' "${results[@]}" | awk '{ print $1 }' | median)" \
+        "$(printf '%s\n' "${results[@]}" | awk '{ print $2 }' | median)" \
+        "$(( $(printf '%s\n' "${results[@]}" | awk '{ print $3 }' | median) / 1024 ))"
+}
+
+printf '%-10s %12s %16s %10s\n' variant "health (ms)" "first req (ms)" "RSS (MiB)"
+if [[ -f "$JAR" ]]; then
+    bench jar java -jar "$JAR"
+    if has_aot "$JAR"; then bench jar+aot java -Dspring.aot.enabled=true -jar "$JAR"; fi
+fi
+if [[ -f target/app/app.jsa ]]; then
+    aot=false
+    if has_aot "target/app/${JAR##*/}"; then aot=true; fi
+    bench cds java -XX:SharedArchiveFile=target/app/app.jsa -Dspring.aot.enabled="$aot" -jar "target/app/${JAR##*/}"
+fi
+if [[ -x target/moodify-backend ]]; then
+    bench native target/moodify-backend
+fi
@@ -0,0 +1,105 @@
+package com.moodify.backend.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the response-parsing hot path: Gemini response -> generated text -> normalized
+ * candidates -> five linked songs. Each recorded response shape (src/jmh/resources) is measured
+ * separately. The YouTube existence check is replaced by a deterministic stub, so only CPU and
+ * allocation in this process are measured. Run with {@code mvn -Pjmh -DskipTests verify};
+ * allocation per operation comes from the gc profiler ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseParsingBenchmark {
+
+    @Param({"candidates", "outputs", "embedded-json", "malformed"})
+    public String shape;
+
+    private final GeminiResponseParser parser = new GeminiResponseParser();
+
+    private String response;
+    private String generated;
+    private String[] lines;
+    private List<String> candidates;
+
+    @Setup
+    public void load() {
+        response = resource("gemini-responses/" + shape + ".json");
+        generated = parser.generatedText(response);
+        lines = generated.split("\\r?\\n");
+        candidates = parser.candidates(generated);
+    }
+
+    @Benchmark
+    public String generatedText() {
+        return parser.generatedText(response);
+    }
+
+    @Benchmark
+    public void normalizeLines(Blackhole bh) {
+        for (String line : lines) {
+            bh.consume(parser.toCandidate(line));
+        }
+    }
+
+    @Benchmark
+    public List<String> candidates() {
+        return parser.candidates(generated);
+    }
+
+    @Benchmark
+    public void withYouTubeLink(Blackhole bh) {
+        for (String candidate : candidates) {
+            bh.consume(SongFormatter.withYouTubeLink(candidate));
+        }
+    }
+
+    // Same steps as MoodService.extractSongs, with the YouTube check stubbed out
+    @Benchmark
+    public List<String> extractSongs() {
+        List<String> accepted = parser.candidates(parser.generatedText(response)).stream()
+                .filter(ResponseParsingBenchmark::stubExists)
+                .limit(5)
+                .toList();
+        return SongFormatter.fillWithFallbacks(accepted).stream()
+                .map(name -> new Song(name, null).formatted())
+                .toList();
+    }
+
+    // Rejects roughly one candidate in eight, always the same ones
+    private static boolean stubExists(String candidate) {
+        return (candidate.hashCode() & 7) != 0;
+    }
+
+    private static String resource(String name) {
+        try (InputStream in = ResponseParsingBenchmark.class.getClassLoader().getResourceAsStream(name)) {
+            if (in == null) throw new IllegalStateException("Missing benchmark resource " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
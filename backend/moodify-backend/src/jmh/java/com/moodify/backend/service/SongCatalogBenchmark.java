@@ -0,0 +1,45 @@
+package com.moodify.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one catalog lookup against the bundled seed catalog: an exact hit, a near-miss
+ * that gets corrected, and a song that is not in the catalog (the full fuzzy scan).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SongCatalogBenchmark {
+
+    @Param({"Tum Hi Ho - Arijit Singh", "Kal Ho Na Ho - Sonu Nigam", "Unknown Song - Nobody"})
+    public String candidate;
+
+    private SongCatalog catalog;
+
+    @Setup
+    public void load() {
+        catalog = new SongCatalog("", 0.8, new SimpleMeterRegistry());
+        catalog.load();
+    }
+
+    @Benchmark
+    public String canonical() {
+        return catalog.canonical(candidate);
+    }
+}
@@ -0,0 +1,35 @@
+package com.moodify.backend.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Log-normal latency given its median and 99th percentile (milliseconds), which is roughly how
+ * remote API latency is shaped: most calls near the median, a long tail. Written "median,p99"
+ * ("800,4000"), or a single number for a fixed latency.
+ */
+record Latency(long medianMillis, long p99Millis) {
+
+    // z-score of the 99th percentile of a standard normal distribution
+    private static final double Z_99 = 2.326;
+
+    static Latency parse(String spec) {
+        String[] parts = spec.split(",");
+        long median = Long.parseLong(parts[0].trim());
+        long p99 = parts.length > 1 ? Long.parseLong(parts[1].trim()) : median;
+        if (median < 0 || p99 < median) throw new IllegalArgumentException("Expected median,p99 with p99 >= median: " + spec);
+        return new Latency(median, p99);
+    }
+
+    Duration sample() {
+        if (p99Millis == medianMillis || medianMillis == 0) return Duration.ofMillis(medianMillis);
+        double sigma = Math.log((double) p99Millis / medianMillis) / Z_99;
+        double millis = medianMillis * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian());
+        return Duration.ofNanos((long) (millis * 1_000_000));
+    }
+
+    @Override
+    public String toString() {
+        return "median " + medianMillis + " ms, p99 " + p99Millis + " ms";
+    }
+}
@@ -0,0 +1,123 @@
+package com.moodify.backend.loadtest;
+
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Open-loop load driver for {@code POST /api/generate}: requests are started at a fixed arrival
+ * rate whether or not earlier ones have finished, and each latency is measured from the
+ * moment its request was due, so a stalled server shows up in the percentiles instead of
+ * silently lowering the offered load. A share of requests repeats a small set of feelings
+ * (cache hits); the rest are unique.
+ */
+final class LoadDriver {
+
+    private static final List<String> MOODS = List.of("Happy", "Sad", "Romantic", "Motivated", "Chill", "Thoughtful");
+    private static final List<String> ERAS = List.of("New", "2000s", "90s", "Old");
+    private static final List<String> LANGUAGES = List.of("Hindi", "English", "Bengali");
+
+    // Number of distinct feelings repeated requests are drawn from
+    private static final int REPEATED_FEELINGS = 20;
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    record Result(double offeredRate, int sent, int ok, int errors, int timeouts, double seconds,
+                  double p50Millis, double p99Millis, double p999Millis, double maxMillis) {
+
+        double throughput() {
+            return ok / seconds;
+        }
+
+        double errorRate() {
+            return sent == 0 ? 0 : (double) (errors + timeouts) / sent;
+        }
+    }
+
+    private final WebClient client;
+    private final double repeatFraction;
+    private final AtomicLong sequence = new AtomicLong();
+
+    LoadDriver(String baseUrl, double repeatFraction) {
+        // Enough connections that the driver itself never queues requests
+        ConnectionProvider provider = ConnectionProvider.builder("load-driver")
+                .maxConnections(4_096)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        this.client = WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(provider)))
+                .build();
+        this.repeatFraction = repeatFraction;
+    }
+
+    Result run(double ratePerSecond, Duration duration) {
+        int total = (int) Math.max(1, Math.round(ratePerSecond * duration.toMillis() / 1000.0));
+        long intervalNanos = (long) (1_000_000_000L / ratePerSecond);
+        long[] latencies = new long[total];
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger timeouts = new AtomicInteger();
+        long start = System.nanoTime();
+
+        Flux.interval(Duration.ofNanos(intervalNanos))
+                .take(total)
+                .flatMap(i -> {
+                    int n = i.intValue();
+                    long due = start + n * intervalNanos;
+                    return send().timeout(REQUEST_TIMEOUT)
+                            .doOnNext(status -> {
+                                latencies[n] = System.nanoTime() - due;
+                                if (status == 200) ok.incrementAndGet();
+                                else errors.incrementAndGet();
+                            })
+                            .onErrorResume(e -> {
+                                latencies[n] = System.nanoTime() - due;
+                                if (e instanceof TimeoutException) timeouts.incrementAndGet();
+                                else errors.incrementAndGet();
+                                return Mono.empty();
+                            });
+                }, Integer.MAX_VALUE)
+                .blockLast();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        Arrays.sort(latencies);
+        return new Result(ratePerSecond, total, ok.get(), errors.get(), timeouts.get(), seconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                latencies[latencies.length - 1] / 1e6);
+    }
+
+    private Mono<Integer> send() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String feeling = random.nextDouble() < repeatFraction
+                ? "a familiar feeling " + random.nextInt(REPEATED_FEELINGS)
+                : "load test feeling " + sequence.incrementAndGet();
+        Map<String, String> body = Map.of(
+                "mood", MOODS.get(random.nextInt(MOODS.size())),
+                "era", ERAS.get(random.nextInt(ERAS.size())),
+                "language", LANGUAGES.get(random.nextInt(LANGUAGES.size())),
+                "feeling", feeling);
+        return client.post()
+                .uri("/api/generate")
+                .bodyValue(body)
+                .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode().value()));
+    }
+
+    // Nearest-rank percentile of sorted nanosecond latencies, in milliseconds
+    private static double percentile(long[] sorted, double p) {
+        int rank = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank))] / 1e6;
+    }
+}
@@ -0,0 +1,144 @@
+package com.moodify.backend.loadtest;
+
+import com.moodify.backend.MoodifyBackendApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.netty.DisposableServer;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Load test against local stand-ins: starts the Gemini and YouTube stubs, boots the app in
+ * this JVM with its base URLs pointed at them (or uses target=URL for an app started
+ * separately), then drives {@code /api/generate} at each arrival rate in turn and prints
+ * throughput, latency percentiles and error rates. No quota is spent and nothing leaves the
+ * machine. Options are key=value arguments, e.g.
+ * {@code mvn -Ploadtest -DskipTests verify -Dloadtest.args="rates=20,50,100 duration=30 gemini.latency=800,4000"}
+ * <pre>
+ * rates=10,25,50          arrival rates (requests/s), one stage each
+ * duration=30             seconds per stage
+ * warmup=10               seconds at the first rate before measuring
+ * repeat=0.1              share of requests repeating a known feeling (cache hits)
+ * gemini.latency=800,3000 median,p99 in ms
+ * gemini.errors=0.01      share of Gemini calls failing with 503
+ * gemini.shape=lines      lines | numbered | embedded-json | malformed | mixed
+ * gemini.songs=8          songs per Gemini answer
+ * youtube.latency=150,800 median,p99 in ms
+ * youtube.errors=0.01     share of YouTube searches failing with 500
+ * youtube.found=0.9       share of YouTube searches with a result
+ * youtube.page-kb=64      size of a results page
+ * target=                 base URL of an already running app (not booted here)
+ * </pre>
+ * The app, the stubs and the driver share this machine, so absolute numbers are only
+ * comparable between runs on the same hardware.
+ */
+public final class LoadHarness {
+
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("rates", "10,25,50"),
+            Map.entry("duration", "30"),
+            Map.entry("warmup", "10"),
+            Map.entry("repeat", "0.1"),
+            Map.entry("gemini.latency", "800,3000"),
+            Map.entry("gemini.errors", "0.01"),
+            Map.entry("gemini.shape", "lines"),
+            Map.entry("gemini.songs", "8"),
+            Map.entry("youtube.latency", "150,800"),
+            Map.entry("youtube.errors", "0.01"),
+            Map.entry("youtube.found", "0.9"),
+            Map.entry("youtube.page-kb", "64"),
+            Map.entry("target", ""));
+
+    private LoadHarness() {
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = options(args);
+
+        StubGeminiServer gemini = new StubGeminiServer(
+                Latency.parse(options.get("gemini.latency")),
+                Double.parseDouble(options.get("gemini.errors")),
+                options.get("gemini.shape"),
+                Integer.parseInt(options.get("gemini.songs")));
+        StubYouTubeServer youtube = new StubYouTubeServer(
+                Latency.parse(options.get("youtube.latency")),
+                Double.parseDouble(options.get("youtube.errors")),
+                Double.parseDouble(options.get("youtube.found")),
+                Integer.parseInt(options.get("youtube.page-kb")));
+        DisposableServer geminiServer = gemini.start();
+        DisposableServer youtubeServer = youtube.start();
+        String geminiUrl = "http://127.0.0.1:" + geminiServer.port();
+        String youtubeUrl = "http://127.0.0.1:" + youtubeServer.port();
+        System.out.printf("Gemini stub  %s (%s, errors %s, shape %s)%n", geminiUrl,
+                options.get("gemini.latency"), options.get("gemini.errors"), options.get("gemini.shape"));
+        System.out.printf("YouTube stub %s (%s, errors %s, found %s)%n", youtubeUrl,
+                options.get("youtube.latency"), options.get("youtube.errors"), options.get("youtube.found"));
+
+        ConfigurableApplicationContext app = null;
+        String target = options.get("target");
+        if (target.isBlank()) {
+            // Command-line arguments, so they win over application.properties
+            app = new SpringApplicationBuilder(MoodifyBackendApplication.class).run(
+                    "--server.port=0",
+                    "--gemini.api.key=load-test",
+                    "--moodify.http.gemini.base-url=" + geminiUrl,
+                    "--moodify.http.youtube.base-url=" + youtubeUrl,
+                    // Measure live generation only: no background pools, no snapshots from earlier runs
+                    "--moodify.pools.enabled=false",
+                    // Every driver request comes from 127.0.0.1
+                    "--moodify.ratelimit.enabled=false",
+                    "--moodify.pools.snapshot-file=",
+                    "--moodify.youtube.cache.snapshot-file=",
+                    "--logging.level.com.moodify=ERROR",
+                    "--logging.level.com.github.benmanes.caffeine=ERROR");
+            target = "http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port");
+        } else {
+            System.out.println("Using the app at " + target + "; point its moodify.http.*.base-url properties at the stubs above");
+        }
+
+        try {
+            LoadDriver driver = new LoadDriver(target, Double.parseDouble(options.get("repeat")));
+            List<Double> rates = Arrays.stream(options.get("rates").split(",")).map(String::trim).map(Double::parseDouble).toList();
+            Duration duration = Duration.ofSeconds(Long.parseLong(options.get("duration")));
+            long warmup = Long.parseLong(options.get("warmup"));
+
+            if (warmup > 0) {
+                System.out.printf("Warming up at %.0f req/s for %d s%n", rates.get(0), warmup);
+                driver.run(rates.get(0), Duration.ofSeconds(warmup));
+            }
+
+            System.out.println();
+            System.out.printf("%8s %7s %7s %7s %7s %11s %9s %9s %9s %9s%n",
+                    "rate/s", "sent", "ok", "errors", "err %", "ok/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+            for (double rate : rates) {
+                long geminiBefore = gemini.requests.sum();
+                long youtubeBefore = youtube.requests.sum();
+                LoadDriver.Result r = driver.run(rate, duration);
+                System.out.printf(Locale.ROOT, "%8.1f %7d %7d %7d %7.2f %11.1f %9.1f %9.1f %9.1f %9.1f   (gemini calls %d, youtube calls %d)%n",
+                        r.offeredRate(), r.sent(), r.ok(), r.errors() + r.timeouts(), 100 * r.errorRate(), r.throughput(),
+                        r.p50Millis(), r.p99Millis(), r.p999Millis(), r.maxMillis(),
+                        gemini.requests.sum() - geminiBefore, youtube.requests.sum() - youtubeBefore);
+            }
+        } finally {
+            if (app != null) app.close();
+            geminiServer.disposeNow();
+            youtubeServer.disposeNow();
+        }
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String key = eq < 0 ? arg : arg.substring(0, eq);
+            if (!DEFAULTS.containsKey(key)) throw new IllegalArgumentException("Unknown option '" + key + "', expected one of " + DEFAULTS.keySet());
+            options.put(key, eq < 0 ? "" : arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,163 @@
+package com.moodify.backend.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for the Gemini generateContent API: answers
+ * {@code POST /{version}/models/{model}:generateContent}, the SSE variant
+ * {@code :streamGenerateContent} and the model metadata GET used for re-probes. Each answer
+ * waits for a sampled latency, fails with 503 at the configured rate, and otherwise returns
+ * random songs. Requests with a response schema (structured output) get a JSON array of
+ * {@code {title, artist}} objects; the others get one of the text shapes the parser handles:
+ * <ul>
+ *   <li>{@code lines}: "Title - Artist" lines, the usual answer</li>
+ *   <li>{@code numbered}: "1. Title - Artist"</li>
+ *   <li>{@code embedded-json}: the text is itself a JSON object with a "text" field</li>
+ *   <li>{@code malformed}: a truncated response body</li>
+ *   <li>{@code mixed}: one of the above at random per request</li>
+ * </ul>
+ * Songs are drawn from a large synthetic space so caches only hit when the driver repeats a
+ * request.
+ */
+final class StubGeminiServer {
+
+    private static final List<String> SHAPES = List.of("lines", "numbered", "embedded-json", "malformed");
+
+    private static final String[] WORDS = {
+            "Midnight", "River", "Golden", "Rain", "Paper", "Heart", "Summer", "Echo", "Silver", "Road",
+            "Neon", "Dream", "Ocean", "Fire", "Velvet", "Sky", "Winter", "Light", "Shadow", "Dance"};
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Latency latency;
+    private final double errorRate;
+    private final String shape;
+    private final int songsPerAnswer;
+
+    final LongAdder requests = new LongAdder();
+    final LongAdder errors = new LongAdder();
+
+    StubGeminiServer(Latency latency, double errorRate, String shape, int songsPerAnswer) {
+        if (!shape.equals("mixed") && !SHAPES.contains(shape)) {
+            throw new IllegalArgumentException("Unknown response shape '" + shape + "', expected one of " + SHAPES + " or mixed");
+        }
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.shape = shape;
+        this.songsPerAnswer = songsPerAnswer;
+    }
+
+    DisposableServer start() {
+        return HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .protocol(HttpProtocol.H2C, HttpProtocol.HTTP11)
+                .compress(true)
+                .handle(this::handle)
+                .bindNow();
+    }
+
+    private Publisher<Void> handle(HttpServerRequest request, HttpServerResponse response) {
+        String path = request.path();
+        if (request.method().equals(HttpMethod.GET)) {
+            return response.header("Content-Type", "application/json").sendString(Mono.just("{}"));
+        }
+        requests.increment();
+        boolean stream = path.endsWith(":streamGenerateContent");
+        Duration delay = latency.sample();
+        // Only checked for a response schema, but it has to be read before answering anyway
+        Mono<String> body = request.receive().aggregate().asString().defaultIfEmpty("");
+
+        if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+            errors.increment();
+            return body.then(Mono.delay(delay)).then(response.status(HttpResponseStatus.SERVICE_UNAVAILABLE)
+                    .header("Content-Type", "application/json")
+                    .sendString(Mono.just("{\"error\":{\"code\":503,\"message\":\"stub overloaded\",\"status\":\"UNAVAILABLE\"}}"))
+                    .then());
+        }
+
+        List<String> lines = songLines();
+        if (stream) {
+            // First chunk after the sampled latency, the rest shortly after each other
+            Flux<String> events = Flux.fromIterable(lines)
+                    .delayElements(Duration.ofMillis(Math.max(1, delay.toMillis() / 20)))
+                    .map(line -> "data: " + candidatesJson(line + "\n") + "\n\n");
+            return body.then(Mono.delay(delay)).then(response.header("Content-Type", "text/event-stream")
+                    .sendString(events)
+                    .then());
+        }
+        return body.delayElement(delay).flatMap(requestBody -> response.header("Content-Type", "application/json")
+                .sendString(Mono.just(requestBody.contains("\"responseSchema\"") ? structuredAnswer(lines) : answer(lines)))
+                .then());
+    }
+
+    private String answer(List<String> lines) {
+        String chosen = shape.equals("mixed") ? SHAPES.get(ThreadLocalRandom.current().nextInt(SHAPES.size())) : shape;
+        String text = String.join("\n", lines);
+        return switch (chosen) {
+            case "numbered" -> {
+                StringBuilder numbered = new StringBuilder();
+                for (int i = 0; i < lines.size(); i++) numbered.append(i + 1).append(". ").append(lines.get(i)).append('\n');
+                yield candidatesJson(numbered.toString());
+            }
+            case "embedded-json" -> candidatesJson(json(Map.of("text", text)));
+            case "malformed" -> {
+                String full = candidatesJson(text);
+                yield full.substring(0, full.length() / 2);
+            }
+            default -> candidatesJson(text);
+        };
+    }
+
+    private static String structuredAnswer(List<String> lines) {
+        List<Map<String, String>> songs = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            int sep = line.lastIndexOf(" - ");
+            songs.add(Map.of("title", line.substring(0, sep), "artist", line.substring(sep + 3)));
+        }
+        return candidatesJson(json(songs));
+    }
+
+    private List<String> songLines() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<String> lines = new ArrayList<>(songsPerAnswer);
+        for (int i = 0; i < songsPerAnswer; i++) {
+            lines.add(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(10_000)
+                    + " - Artist " + random.nextInt(1_000));
+        }
+        return lines;
+    }
+
+    private static String candidatesJson(String text) {
+        return json(Map.of("candidates", List.of(Map.of(
+                "content", Map.of("parts", List.of(Map.of("text", text)), "role", "model"),
+                "finishReason", "STOP",
+                "index", 0))));
+    }
+
+    private static String json(Object value) {
+        try {
+            return MAPPER.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
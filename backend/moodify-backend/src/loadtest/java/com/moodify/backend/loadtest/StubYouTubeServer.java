@@ -0,0 +1,86 @@
+package com.moodify.backend.loadtest;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for the YouTube results page ({@code GET /results}). After a sampled latency
+ * it fails with 500 at the configured rate, otherwise streams an HTML page of the configured
+ * size in 8 KB chunks. At the found rate the page lists a video (the marker the scanner looks
+ * for sits a third of the way in, like on a real page); otherwise it has no results.
+ */
+final class StubYouTubeServer {
+
+    private static final int CHUNK = 8 * 1024;
+
+    private final Latency latency;
+    private final double errorRate;
+    private final double foundRate;
+    private final int pageBytes;
+
+    final LongAdder requests = new LongAdder();
+    final LongAdder errors = new LongAdder();
+
+    StubYouTubeServer(Latency latency, double errorRate, double foundRate, int pageKilobytes) {
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.foundRate = foundRate;
+        this.pageBytes = Math.max(CHUNK, pageKilobytes * 1024);
+    }
+
+    DisposableServer start() {
+        return HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .protocol(HttpProtocol.H2C, HttpProtocol.HTTP11)
+                .compress(true)
+                .route(routes -> routes.get("/results", this::results))
+                .bindNow();
+    }
+
+    private Publisher<Void> results(HttpServerRequest request, HttpServerResponse response) {
+        requests.increment();
+        Duration delay = latency.sample();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        if (random.nextDouble() < errorRate) {
+            errors.increment();
+            return Mono.delay(delay).then(response.status(HttpResponseStatus.INTERNAL_SERVER_ERROR).send().then());
+        }
+
+        boolean found = random.nextDouble() < foundRate;
+        int chunks = pageBytes / CHUNK;
+        int markerChunk = chunks / 3;
+        Flux<String> page = Flux.range(0, chunks)
+                .map(i -> found && i == markerChunk ? videoChunk() : filler(i));
+        return Mono.delay(delay).then(response.header("Content-Type", "text/html; charset=utf-8")
+                .sendString(page)
+                .then());
+    }
+
+    private static String filler(int i) {
+        StringBuilder sb = new StringBuilder(CHUNK);
+        sb.append("<div class=\"filler-").append(i).append("\">");
+        while (sb.length() < CHUNK - 6) sb.append("lorem ipsum dolor sit amet ");
+        sb.setLength(CHUNK - 6);
+        return sb.append("</div>").toString();
+    }
+
+    private static String videoChunk() {
+        String video = "{\"videoRenderer\":{\"videoId\":\"stub0000001\",\"navigationEndpoint\":{\"url\":\"/watch?v=stub0000001\"}}}";
+        StringBuilder sb = new StringBuilder(CHUNK).append(video);
+        while (sb.length() < CHUNK) sb.append(' ');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,120 @@
+package com.moodify.backend.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.transport.AddressUtils;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Outgoing HTTP clients. Gemini and YouTube share one connection pool with a separate
+ * connection limit per host. Idle connections are kept for a while (and evicted in the
+ * background) so most requests reuse a warm TLS connection instead of handshaking on the
+ * request path. Both clients negotiate HTTP/2 where the server supports it, ask for gzip, and
+ * have explicit connect and response timeouts. Pool and client meters (including connect and
+ * TLS handshake times) are published as reactor.netty.*. Base URLs are configurable so the
+ * clients can be pointed at local stand-ins (see src/loadtest).
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${moodify.http.gemini.base-url:https://generativelanguage.googleapis.com}")
+    private URI geminiBaseUrl;
+
+    @Value("${moodify.http.youtube.base-url:https://www.youtube.com}")
+    private URI youtubeBaseUrl;
+
+    @Value("${moodify.http.connect-timeout:PT3S}")
+    private Duration connectTimeout;
+
+    @Value("${moodify.http.http2:true}")
+    private boolean http2;
+
+    @Value("${moodify.http.compression:true}")
+    private boolean compression;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider moodifyConnectionProvider(
+            @Value("${moodify.http.pool.max-connections:50}") int maxConnections,
+            @Value("${moodify.http.pool.pending-acquire-timeout:PT5S}") Duration pendingAcquireTimeout,
+            @Value("${moodify.http.pool.max-pending-acquires:1000}") int maxPendingAcquires,
+            @Value("${moodify.http.pool.max-idle-time:PT55S}") Duration maxIdleTime,
+            @Value("${moodify.http.pool.max-life-time:PT10M}") Duration maxLifeTime,
+            @Value("${moodify.http.pool.evict-interval:PT30S}") Duration evictInterval,
+            @Value("${moodify.http.gemini.max-connections:64}") int geminiMaxConnections,
+            @Value("${moodify.http.youtube.max-connections:32}") int youtubeMaxConnections) {
+        return ConnectionProvider.builder("moodify-http")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .pendingAcquireMaxCount(maxPendingAcquires)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInterval)
+                .metrics(true)
+                .forRemoteHost(remoteAddress(geminiBaseUrl), spec -> spec.maxConnections(geminiMaxConnections)
+                        .pendingAcquireMaxCount(maxPendingAcquires))
+                .forRemoteHost(remoteAddress(youtubeBaseUrl), spec -> spec.maxConnections(youtubeMaxConnections)
+                        .pendingAcquireMaxCount(maxPendingAcquires))
+                .build();
+    }
+
+    // Gemini answers can take tens of seconds; streamed answers get the timeout between chunks
+    @Bean
+    public WebClient geminiWebClient(
+            ConnectionProvider moodifyConnectionProvider,
+            @Value("${moodify.http.gemini.response-timeout:PT60S}") Duration responseTimeout) {
+        return WebClient.builder()
+                .baseUrl(geminiBaseUrl.toString())
+                .clientConnector(new ReactorClientHttpConnector(httpClient(moodifyConnectionProvider, geminiBaseUrl, responseTimeout)))
+                .build();
+    }
+
+    // Result pages are streamed and scanned chunk by chunk, so the default codec limit is enough
+    @Bean
+    public WebClient youtubeWebClient(
+            ConnectionProvider moodifyConnectionProvider,
+            @Value("${moodify.http.youtube.response-timeout:PT5S}") Duration responseTimeout) {
+        return WebClient.builder()
+                .baseUrl(youtubeBaseUrl.toString())
+                .clientConnector(new ReactorClientHttpConnector(httpClient(moodifyConnectionProvider, youtubeBaseUrl, responseTimeout)))
+                .build();
+    }
+
+    private HttpClient httpClient(ConnectionProvider provider, URI baseUrl, Duration responseTimeout) {
+        HttpClient client = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .compress(compression)
+                .responseTimeout(responseTimeout)
+                // Tag by path only: query strings carry the API key and search terms
+                .metrics(true, HttpClientConfig::pathOnly);
+        // HTTP/2 is negotiated during the TLS handshake (ALPN); plain-HTTP base URLs ask for an h2c upgrade
+        if (http2) {
+            client = client.protocol("https".equals(baseUrl.getScheme()) ? HttpProtocol.H2 : HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        // Load the TLS provider and event loops now rather than on the first request
+        client.warmup().block();
+        return client;
+    }
+
+    // Pool key of a base URL, built the way reactor-netty builds it (IP literals come out resolved)
+    private static InetSocketAddress remoteAddress(URI baseUrl) {
+        int port = baseUrl.getPort() >= 0 ? baseUrl.getPort() : "https".equals(baseUrl.getScheme()) ? 443 : 80;
+        return AddressUtils.createUnresolved(baseUrl.getHost(), port);
+    }
+
+    static String pathOnly(String uri) {
+        int query = uri.indexOf('?');
+        return query < 0 ? uri : uri.substring(0, query);
+    }
+}
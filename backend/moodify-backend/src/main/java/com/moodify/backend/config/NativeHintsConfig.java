@@ -0,0 +1,33 @@
+package com.moodify.backend.config;
+
+import com.moodify.backend.dto.BatchItemResult;
+import com.moodify.backend.dto.BatchMoodResponse;
+import com.moodify.backend.dto.MoodRequest;
+import com.moodify.backend.dto.MoodResponse;
+import com.moodify.backend.dto.SongResult;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Hints for the native image (-Pnative). AOT processing infers hints for plain controller
+ * parameters and return values, but not for DTOs behind Mono, Flux or ServerSentEvent, so
+ * Jackson binding for the API types is registered here. The song catalog is read with
+ * getResourceAsStream, which the native image only serves for resources registered here;
+ * without it the catalog would silently load empty. Has no effect on the JVM.
+ */
+@Configuration(proxyBeanMethods = false)
+@RegisterReflectionForBinding({MoodRequest.class, MoodResponse.class, SongResult.class, BatchItemResult.class, BatchMoodResponse.class})
+@ImportRuntimeHints(NativeHintsConfig.ResourceHints.class)
+public class NativeHintsConfig {
+
+    static class ResourceHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.resources().registerPattern("catalog/songs.tsv");
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.moodify.backend.config;
+
+import com.moodify.backend.service.ClientRateLimiter;
+import com.moodify.backend.service.RateLimitedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Per-client rate limit for the generation endpoints (/api/generate, /stream, /batch). A client
+ * over its limit gets 429 with a Retry-After header right away, before the body is read. A batch
+ * costs one token per item, so it is charged by MoodController once its body is parsed instead.
+ * Clients are told apart by remote address; behind a proxy, set
+ * server.forward-headers-strategy so that is the original client's address.
+ */
+@Component
+public class RateLimitFilter implements WebFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    // Exact paths: a prefix would also charge unrelated routes, and the batch is charged per item by MoodController
+    private static final Set<String> LIMITED_PATHS = Set.of("/api/generate", "/api/generate/stream");
+
+    private final ClientRateLimiter rateLimiter;
+
+    public RateLimitFilter(ClientRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String path = exchange.getRequest().getPath().value();
+        if (!LIMITED_PATHS.contains(path) || exchange.getRequest().getMethod() == HttpMethod.OPTIONS) {
+            return chain.filter(exchange);
+        }
+
+        String client = clientOf(exchange);
+        Duration wait = rateLimiter.tryAcquire(client);
+        if (wait.isZero()) return chain.filter(exchange);
+
+        long retryAfter = RateLimitedException.retryAfterSeconds(wait);
+        logger.debug("Rate limited client {} (retry after {} s)", client, retryAfter);
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        // Rejected before CORS processing; allow any origin as MoodController does, so browsers see the 429
+        if (exchange.getRequest().getHeaders().getOrigin() != null) {
+            response.getHeaders().setAccessControlAllowOrigin("*");
+            response.getHeaders().setAccessControlExposeHeaders(List.of(HttpHeaders.RETRY_AFTER));
+        }
+        DataBuffer body = response.bufferFactory().wrap(
+                "{\"error\":\"Too many requests, retry in a few seconds\"}".getBytes(StandardCharsets.UTF_8));
+        return response.writeWith(Mono.just(body));
+    }
+
+    /** Rate-limit key of the request's client. */
+    public static String clientOf(ServerWebExchange exchange) {
+        InetSocketAddress remote = exchange.getRequest().getRemoteAddress();
+        if (remote == null) return "unknown";
+        return remote.getAddress() != null ? remote.getAddress().getHostAddress() : remote.getHostString();
+    }
+}
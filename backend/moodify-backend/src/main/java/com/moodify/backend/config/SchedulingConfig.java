@@ -0,0 +1,10 @@
+package com.moodify.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Background jobs (cache snapshots and similar housekeeping)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
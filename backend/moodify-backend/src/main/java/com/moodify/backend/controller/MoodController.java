@@ -1,37 +1,101 @@
 package com.moodify.backend.controller;
 
+import com.moodify.backend.config.RateLimitFilter;
+import com.moodify.backend.dto.BatchMoodResponse;
 import com.moodify.backend.dto.MoodRequest;
 import com.moodify.backend.dto.MoodResponse;
+import com.moodify.backend.service.AdmissionControl;
+import com.moodify.backend.service.BatchMoodService;
+import com.moodify.backend.service.ClientRateLimiter;
 import com.moodify.backend.service.MoodService;
+import com.moodify.backend.service.RateLimitedException;
+import com.moodify.backend.service.Song;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RestController
 @RequestMapping("/api")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.RETRY_AFTER)
 public class MoodController {
 
     private static final Logger logger = LoggerFactory.getLogger(MoodController.class);
 
     private final MoodService moodService;
+    private final BatchMoodService batchMoodService;
+    private final AdmissionControl admissionControl;
+    private final ClientRateLimiter rateLimiter;
 
-    public MoodController(MoodService moodService) {
+    public MoodController(MoodService moodService, BatchMoodService batchMoodService, AdmissionControl admissionControl,
+                          ClientRateLimiter rateLimiter) {
         this.moodService = moodService;
+        this.batchMoodService = batchMoodService;
+        this.admissionControl = admissionControl;
+        this.rateLimiter = rateLimiter;
     }
 
     @PostMapping("/generate")
-    public MoodResponse generateSongs(@RequestBody MoodRequest request) {
+    public Mono<MoodResponse> generateSongs(@RequestBody MoodRequest request) {
         logger.info("Received generate request: mood={}, era={}, language={}", request.getMood(), request.getEra(), request.getLanguage());
 
-        return new MoodResponse(
-                moodService.generateSongs(request)
-        );
+        // Under overload, a degraded answer now beats an unbounded wait
+        return admissionControl.admit(() -> moodService.generateSongs(request), () -> moodService.shedSongs(request))
+                .map(songs -> new MoodResponse(songs.stream().map(Song::formatted).toList(),
+                        songs.stream().map(Song::toResult).toList()));
+    }
+
+    // Streaming variant: per validated song a "song" event (string form) and a "track" event (JSON),
+    // then a "done" event with the count
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamSongs(@RequestBody MoodRequest request) {
+        logger.info("Received streaming generate request: mood={}, era={}, language={}", request.getMood(), request.getEra(), request.getLanguage());
+
+        AtomicInteger count = new AtomicInteger();
+        return admissionControl.admitMany(() -> moodService.streamSongs(request),
+                        () -> Flux.fromIterable(moodService.shedSongs(request)))
+                .concatMap(song -> {
+                    String id = String.valueOf(count.incrementAndGet());
+                    return Flux.just(
+                            ServerSentEvent.<Object>builder(song.formatted()).event("song").id(id).build(),
+                            ServerSentEvent.<Object>builder(song.toResult()).event("track").id(id).build());
+                })
+                .concatWith(Mono.fromSupplier(() -> ServerSentEvent.<Object>builder(String.valueOf(count.get()))
+                        .event("done")
+                        .build()))
+                .onErrorResume(ex -> {
+                    logger.error("Streaming generate failed:", ex);
+                    return Mono.just(ServerSentEvent.<Object>builder(String.valueOf(ex.getMessage()))
+                            .event("error")
+                            .build());
+                });
+    }
+
+    // Recommendations for many requests at once; failures are reported per item. Each item is charged
+    // to the client's rate limit; admission is weighed by the Gemini prompts the batch runs at once.
+    @PostMapping("/generate/batch")
+    public Mono<BatchMoodResponse> generateBatch(@RequestBody List<MoodRequest> requests, ServerWebExchange exchange) {
+        logger.info("Received batch generate request: {} items", requests == null ? 0 : requests.size());
+        batchMoodService.validate(requests);
+
+        Duration wait = rateLimiter.tryAcquire(RateLimitFilter.clientOf(exchange), requests.size());
+        if (!wait.isZero()) throw new RateLimitedException(wait);
+
+        return admissionControl.admit(() -> batchMoodService.generateBatch(requests),
+                        () -> batchMoodService.shedBatch(requests), batchMoodService.admissionWeight(requests))
+                .map(BatchMoodResponse::new);
     }
 
     // Mock endpoint to return canned songs when Gemini is unavailable
@@ -50,6 +114,22 @@ public class MoodController {
 
 
 
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleBadRequest(IllegalArgumentException ex) {
+        logger.warn("Rejected request: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(RateLimitedException.class)
+    public ResponseEntity<Map<String, String>> handleRateLimited(RateLimitedException ex) {
+        long retryAfter = RateLimitedException.retryAfterSeconds(ex.getRetryAfter());
+        logger.debug("Rate limited batch (retry after {} s)", retryAfter);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                .body(Map.of("error", ex.getMessage()));
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, String>> handleRuntime(RuntimeException ex) {
         logger.error("Unhandled exception:", ex);
@@ -0,0 +1,45 @@
+package com.moodify.backend.controller;
+
+import com.moodify.backend.service.AdmissionControl;
+import com.moodify.backend.service.GeminiClient;
+import com.moodify.backend.service.RecommendationCache;
+import com.moodify.backend.service.SongPoolStore;
+import com.moodify.backend.service.YouTubeExistenceCache;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Operational counters used to size caches and limits
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+    private final RecommendationCache recommendationCache;
+    private final YouTubeExistenceCache youTubeExistenceCache;
+    private final GeminiClient geminiClient;
+    private final SongPoolStore songPools;
+    private final AdmissionControl admissionControl;
+
+    public StatsController(RecommendationCache recommendationCache, YouTubeExistenceCache youTubeExistenceCache,
+                           GeminiClient geminiClient, SongPoolStore songPools, AdmissionControl admissionControl) {
+        this.recommendationCache = recommendationCache;
+        this.youTubeExistenceCache = youTubeExistenceCache;
+        this.geminiClient = geminiClient;
+        this.songPools = songPools;
+        this.admissionControl = admissionControl;
+    }
+
+    @GetMapping
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("recommendationCache", recommendationCache.stats());
+        out.put("youtubeExistenceCache", youTubeExistenceCache.stats());
+        out.put("gemini", geminiClient.stats());
+        out.put("songPools", songPools.stats());
+        out.put("admission", admissionControl.stats());
+        return out;
+    }
+}
@@ -0,0 +1,62 @@
+package com.moodify.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+// Result for one entry of a batch request: either songs (strings and structured tracks) or an error, never both
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+
+    private int index;
+    private List<String> songs;
+    private List<SongResult> tracks;
+    private String error;
+
+    public BatchItemResult(int index, List<String> songs, List<SongResult> tracks, String error) {
+        this.index = index;
+        this.songs = songs;
+        this.tracks = tracks;
+        this.error = error;
+    }
+
+    public static BatchItemResult ok(int index, List<String> songs, List<SongResult> tracks) {
+        return new BatchItemResult(index, songs, tracks, null);
+    }
+
+    public static BatchItemResult failed(int index, String error) {
+        return new BatchItemResult(index, null, null, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public List<String> getSongs() {
+        return songs;
+    }
+
+    public void setSongs(List<String> songs) {
+        this.songs = songs;
+    }
+
+    public List<SongResult> getTracks() {
+        return tracks;
+    }
+
+    public void setTracks(List<SongResult> tracks) {
+        this.tracks = tracks;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,21 @@
+package com.moodify.backend.dto;
+
+import java.util.List;
+
+public class BatchMoodResponse {
+
+    // One entry per request, in request order
+    private List<BatchItemResult> results;
+
+    public BatchMoodResponse(List<BatchItemResult> results) {
+        this.results = results;
+    }
+
+    public List<BatchItemResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchItemResult> results) {
+        this.results = results;
+    }
+}
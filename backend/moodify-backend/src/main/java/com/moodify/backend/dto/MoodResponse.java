@@ -1,13 +1,23 @@
 package com.moodify.backend.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
+// songs: "title | youtubeLink | spotifyLink" strings (kept for older clients); tracks: the same songs structured
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class MoodResponse {
 
     private List<String> songs;
+    private List<SongResult> tracks;
 
     public MoodResponse(List<String> songs) {
+        this(songs, null);
+    }
+
+    public MoodResponse(List<String> songs, List<SongResult> tracks) {
         this.songs = songs;
+        this.tracks = tracks;
     }
 
     public List<String> getSongs() {
@@ -17,4 +27,12 @@ public class MoodResponse {
     public void setSongs(List<String> songs) {
         this.songs = songs;
     }
+
+    public List<SongResult> getTracks() {
+        return tracks;
+    }
+
+    public void setTracks(List<SongResult> tracks) {
+        this.tracks = tracks;
+    }
 }
@@ -0,0 +1,83 @@
+package com.moodify.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// One recommended song. Songs whose video is known get watch/embed URLs, the others a YouTube search URL
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SongResult {
+
+    private String title;
+    private String artist;
+    private String videoId;
+    private String watchUrl;
+    private String embedUrl;
+    private String youtubeSearchUrl;
+    private String spotifyUrl;
+
+    public SongResult(String title, String artist, String videoId, String watchUrl, String embedUrl,
+                      String youtubeSearchUrl, String spotifyUrl) {
+        this.title = title;
+        this.artist = artist;
+        this.videoId = videoId;
+        this.watchUrl = watchUrl;
+        this.embedUrl = embedUrl;
+        this.youtubeSearchUrl = youtubeSearchUrl;
+        this.spotifyUrl = spotifyUrl;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getArtist() {
+        return artist;
+    }
+
+    public void setArtist(String artist) {
+        this.artist = artist;
+    }
+
+    public String getVideoId() {
+        return videoId;
+    }
+
+    public void setVideoId(String videoId) {
+        this.videoId = videoId;
+    }
+
+    public String getWatchUrl() {
+        return watchUrl;
+    }
+
+    public void setWatchUrl(String watchUrl) {
+        this.watchUrl = watchUrl;
+    }
+
+    public String getEmbedUrl() {
+        return embedUrl;
+    }
+
+    public void setEmbedUrl(String embedUrl) {
+        this.embedUrl = embedUrl;
+    }
+
+    public String getYoutubeSearchUrl() {
+        return youtubeSearchUrl;
+    }
+
+    public void setYoutubeSearchUrl(String youtubeSearchUrl) {
+        this.youtubeSearchUrl = youtubeSearchUrl;
+    }
+
+    public String getSpotifyUrl() {
+        return spotifyUrl;
+    }
+
+    public void setSpotifyUrl(String spotifyUrl) {
+        this.spotifyUrl = spotifyUrl;
+    }
+}
@@ -0,0 +1,85 @@
+package com.moodify.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * AIMD limit on concurrent Gemini calls. Each call that finishes under the latency threshold
+ * while the limit is in use grows the limit by about one per round trip (+1/limit per call);
+ * a slow or failed call shrinks it multiplicatively. Calls over the limit are rejected at once
+ * rather than queued.
+ */
+final class AdaptiveConcurrencyLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    private static final double BACKOFF_RATIO = 0.75;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+
+    private double limit;
+    private int inFlight;
+    private long rejected;
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.max(this.minLimit, Math.min(initialLimit, this.maxLimit));
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+    }
+
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            rejected++;
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /** Release a permit and adjust the limit from the call's outcome. */
+    synchronized void release(long elapsedNanos, boolean failed) {
+        inFlight = Math.max(0, inFlight - 1);
+        int before = (int) limit;
+        if (failed || elapsedNanos > latencyThresholdNanos) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+        } else if (inFlight * 2 >= (int) limit) {
+            // Only grow while the limit is actually being used
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+        if ((int) limit != before) {
+            logger.info("Gemini concurrency limit {} -> {}", before, (int) limit);
+        }
+    }
+
+    // Release without a sample (cancelled call)
+    synchronized void release() {
+        inFlight = Math.max(0, inFlight - 1);
+    }
+
+    synchronized int limit() {
+        return (int) limit;
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+
+    synchronized long rejected() {
+        return rejected;
+    }
+
+    synchronized Map<String, Object> snapshot() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("limit", (int) limit);
+        out.put("inFlight", inFlight);
+        out.put("rejected", rejected);
+        return out;
+    }
+}
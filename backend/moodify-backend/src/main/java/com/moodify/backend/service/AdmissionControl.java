@@ -0,0 +1,207 @@
+package com.moodify.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for generation requests: at most max-concurrent run at once, up to
+ * max-queue more wait (first come, first served) for at most max-wait. A request that finds
+ * the queue full, or is still waiting when max-wait runs out, is shed: it gets the caller's
+ * fast fallback answer instead of an unbounded wait. Requests whose client disconnects while
+ * queued leave the queue. A request can weigh several permits (a batch counts one per Gemini
+ * prompt it runs at once, capped at max-concurrent); the queue is strictly first come, first served, so a heavy
+ * request at its head is not overtaken by lighter ones.
+ */
+@Component
+public class AdmissionControl {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControl.class);
+
+    private static final int WAITING = 0;
+    private static final int ADMITTED = 1;
+    private static final int RUNNING = 2;
+    private static final int ABANDONED = 3;
+
+    // One queued request; its state moves WAITING -> ADMITTED -> RUNNING, or to ABANDONED
+    private static final class Waiter {
+        final int permits;
+        final AtomicInteger state = new AtomicInteger(WAITING);
+        final Sinks.One<Boolean> admitted = Sinks.one();
+        final Timer.Sample sample = Timer.start();
+
+        Waiter(int permits) {
+            this.permits = permits;
+        }
+    }
+
+    private final boolean enabled;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final Duration maxWait;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    private final Timer queueWait;
+    private final Counter shedQueueFull;
+    private final Counter shedTimeout;
+
+    public AdmissionControl(
+            @Value("${moodify.admission.enabled:true}") boolean enabled,
+            @Value("${moodify.admission.max-concurrent:64}") int maxConcurrent,
+            @Value("${moodify.admission.max-queue:256}") int maxQueue,
+            @Value("${moodify.admission.max-wait:PT2S}") Duration maxWait,
+            MeterRegistry meterRegistry) {
+        if (maxConcurrent < 1 || maxQueue < 0) {
+            throw new IllegalArgumentException("moodify.admission needs max-concurrent >= 1 and max-queue >= 0");
+        }
+        this.enabled = enabled;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.maxWait = maxWait;
+
+        Gauge.builder("moodify.admission.in.flight", inFlight, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("moodify.admission.queue.depth", queued, AtomicInteger::get).register(meterRegistry);
+        this.queueWait = Timer.builder("moodify.admission.wait")
+                .description("Time admitted requests spent queued")
+                .register(meterRegistry);
+        this.shedQueueFull = Counter.builder("moodify.admission.shed").tag("reason", "queue_full").register(meterRegistry);
+        this.shedTimeout = Counter.builder("moodify.admission.shed").tag("reason", "timeout").register(meterRegistry);
+    }
+
+    /** Runs {@code work} once admitted, or answers with {@code shed} if it cannot be admitted in time. */
+    public <T> Mono<T> admit(Supplier<Mono<T>> work, Supplier<T> shed) {
+        return admit(work, shed, 1);
+    }
+
+    /** Like {@link #admit(Supplier, Supplier)} for a request that weighs {@code permits} permits. */
+    public <T> Mono<T> admit(Supplier<Mono<T>> work, Supplier<T> shed, int permits) {
+        return admitMany(() -> work.get().flux(), () -> Flux.just(shed.get()), permits).singleOrEmpty();
+    }
+
+    /** Streaming variant of {@link #admit}. */
+    public <T> Flux<T> admitMany(Supplier<Flux<T>> work, Supplier<Flux<T>> shed) {
+        return admitMany(work, shed, 1);
+    }
+
+    private <T> Flux<T> admitMany(Supplier<Flux<T>> work, Supplier<Flux<T>> shed, int weight) {
+        if (!enabled) return Flux.defer(work);
+        int permits = Math.max(1, Math.min(weight, maxConcurrent));
+
+        return Flux.defer(() -> {
+            // Nobody may overtake requests already waiting
+            if (waiters.isEmpty() && tryAcquire(permits)) return run(work, permits);
+
+            if (queued.incrementAndGet() > maxQueue) {
+                queued.decrementAndGet();
+                shedQueueFull.increment();
+                logger.debug("Admission queue full ({} waiting), shedding request", maxQueue);
+                return Flux.defer(shed);
+            }
+            Waiter waiter = new Waiter(permits);
+            waiters.add(waiter);
+            // A permit may have been released between tryAcquire() and add()
+            drain();
+
+            return waiter.admitted.asMono()
+                    .timeout(maxWait, Mono.fromSupplier(() -> {
+                        if (waiter.state.compareAndSet(WAITING, ABANDONED)) {
+                            queued.decrementAndGet();
+                            return false;
+                        }
+                        return true;
+                    }))
+                    .flatMapMany(admitted -> {
+                        if (!admitted) {
+                            shedTimeout.increment();
+                            logger.debug("Request waited {} without being admitted, shedding it", maxWait);
+                            return Flux.defer(shed);
+                        }
+                        if (!waiter.state.compareAndSet(ADMITTED, RUNNING)) return Flux.empty();
+                        waiter.sample.stop(queueWait);
+                        return runAdmitted(work, permits);
+                    })
+                    .doOnCancel(() -> abandon(waiter));
+        });
+    }
+
+    private boolean tryAcquire(int permits) {
+        while (true) {
+            int current = inFlight.get();
+            if (current + permits > maxConcurrent) return false;
+            if (inFlight.compareAndSet(current, current + permits)) return true;
+        }
+    }
+
+    private <T> Flux<T> run(Supplier<Flux<T>> work, int permits) {
+        queueWait.record(Duration.ZERO);
+        return runAdmitted(work, permits);
+    }
+
+    private <T> Flux<T> runAdmitted(Supplier<Flux<T>> work, int permits) {
+        return Flux.defer(work).doFinally(signal -> release(permits));
+    }
+
+    private void release(int permits) {
+        inFlight.addAndGet(-permits);
+        drain();
+    }
+
+    // Hand free permits to waiting requests in order, dropping ones that gave up; stops at the
+    // first request that does not fit yet. Serialized so the head that was sized is the one removed.
+    private synchronized void drain() {
+        Waiter waiter;
+        while ((waiter = waiters.peek()) != null) {
+            if (waiter.state.get() != WAITING) {
+                waiters.poll();
+                continue;
+            }
+            if (!tryAcquire(waiter.permits)) return;
+            waiters.poll();
+            if (!waiter.state.compareAndSet(WAITING, ADMITTED)) {
+                inFlight.addAndGet(-waiter.permits);
+                continue;
+            }
+            queued.decrementAndGet();
+            waiter.admitted.tryEmitValue(true);
+        }
+    }
+
+    // The caller went away: leave the queue, or give back a permit that was handed over but not used
+    private void abandon(Waiter waiter) {
+        if (waiter.state.compareAndSet(WAITING, ABANDONED)) {
+            queued.decrementAndGet();
+        } else if (waiter.state.compareAndSet(ADMITTED, ABANDONED)) {
+            release(waiter.permits);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("inFlight", inFlight.get());
+        out.put("queued", queued.get());
+        out.put("maxConcurrent", maxConcurrent);
+        out.put("maxQueue", maxQueue);
+        out.put("shedQueueFull", (long) shedQueueFull.count());
+        out.put("shedTimeout", (long) shedTimeout.count());
+        return out;
+    }
+}
@@ -0,0 +1,296 @@
+package com.moodify.backend.service;
+
+import com.moodify.backend.dto.BatchItemResult;
+import com.moodify.backend.dto.MoodRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Generates recommendations for many mood requests at once. Requests not already cached are
+ * packed into as few Gemini prompts as the token budget allows; each answer is split back
+ * into per-request sections, and all candidates of the batch are checked against YouTube in
+ * a single deduplicated pass. Failures are reported per item instead of failing the batch;
+ * prompts Gemini refuses (breaker open, concurrency limit) get degraded answers instead.
+ */
+@Service
+public class BatchMoodService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchMoodService.class);
+
+    // Section header the model is asked to print before each request's songs, e.g. "### 3"
+    private static final Pattern SECTION_HEADER = Pattern.compile("^\\s*#+\\s*(\\d+)\\s*:?\\s*$");
+
+    // Rough output cost of one section: a header plus five "Song - Artist" lines
+    private static final int OUTPUT_TOKENS_PER_ITEM = 80;
+
+    private static final String PROMPT_HEADER = """
+            Suggest songs for each numbered request below.
+            For EVERY request, respond with a header line ### <number> followed by five unique lines, each in this exact format:
+            Song - Artist
+            Do NOT include numbering, quotes, explanations, or any extra text.
+            If you cannot find songs exactly matching the language/era, return the closest matches in that format.
+            """;
+
+    private final MoodService moodService;
+    private final RecommendationCache recommendationCache;
+
+    @Value("${moodify.batch.max-items:100}")
+    private int maxItems;
+
+    @Value("${moodify.batch.prompt-token-budget:4000}")
+    private int promptTokenBudget;
+
+    @Value("${moodify.batch.max-concurrent-prompts:4}")
+    private int maxConcurrentPrompts;
+
+    public BatchMoodService(MoodService moodService, RecommendationCache recommendationCache) {
+        this.moodService = moodService;
+        this.recommendationCache = recommendationCache;
+    }
+
+    // Candidates parsed for one request, or the reason there are none; degraded is set when Gemini refused the call
+    private record Section(List<String> candidates, String error, List<Song> degraded) {
+        Section(List<String> candidates, String error) {
+            this(candidates, error, null);
+        }
+    }
+
+    // Final songs for one request, or the reason there are none
+    private record Outcome(List<Song> songs, String error) {
+    }
+
+    /** Rejects an empty or oversized batch with IllegalArgumentException, before any work is charged or queued. */
+    public void validate(List<MoodRequest> requests) {
+        String problem = problem(requests);
+        if (problem != null) throw new IllegalArgumentException(problem);
+    }
+
+    private String problem(List<MoodRequest> requests) {
+        if (requests == null || requests.isEmpty()) return "Batch must contain at least one request";
+        if (requests.size() > maxItems) return "Batch too large: " + requests.size() + " items (max " + maxItems + ")";
+        return null;
+    }
+
+    /**
+     * Admission weight of a batch: the Gemini prompts it can have in flight at once (its packs,
+     * at most max-concurrent-prompts), not its item count. Cached items only make this lower.
+     */
+    public int admissionWeight(List<MoodRequest> requests) {
+        Map<RecommendationKey, MoodRequest> unique = new LinkedHashMap<>();
+        for (MoodRequest request : requests) {
+            if (request != null) unique.putIfAbsent(RecommendationKey.of(request), request);
+        }
+        if (unique.isEmpty()) return 1;
+        return Math.min(pack(unique, promptTokenBudget).size(), Math.max(1, maxConcurrentPrompts));
+    }
+
+    public Mono<List<BatchItemResult>> generateBatch(List<MoodRequest> requests) {
+        String problem = problem(requests);
+        if (problem != null) return Mono.error(new IllegalArgumentException(problem));
+
+        // Identical (normalized) requests in one batch are generated once
+        Map<RecommendationKey, MoodRequest> unique = new LinkedHashMap<>();
+        for (MoodRequest request : requests) {
+            if (request != null) unique.putIfAbsent(RecommendationKey.of(request), request);
+        }
+
+        return Flux.fromIterable(unique.entrySet())
+                .flatMap(e -> recommendationCache.getIfPresent(e.getValue()).map(songs -> Map.entry(e.getKey(), songs)))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .flatMap(cached -> {
+                    Map<RecommendationKey, MoodRequest> pending = new LinkedHashMap<>(unique);
+                    pending.keySet().removeAll(cached.keySet());
+                    return generatePending(pending).map(generated -> {
+                        Map<RecommendationKey, Outcome> byKey = new HashMap<>(generated);
+                        cached.forEach((key, songs) -> byKey.put(key, new Outcome(songs, null)));
+                        return assemble(requests, byKey);
+                    });
+                });
+    }
+
+    private Mono<Map<RecommendationKey, Outcome>> generatePending(Map<RecommendationKey, MoodRequest> pending) {
+        if (pending.isEmpty()) return Mono.just(Map.of());
+
+        List<List<RecommendationKey>> packs = pack(pending, promptTokenBudget);
+        logger.info("Batch: {} uncached requests packed into {} prompt(s)", pending.size(), packs.size());
+
+        return Flux.fromIterable(packs)
+                .flatMap(pack -> generatePack(pack, pending), maxConcurrentPrompts)
+                .collectList()
+                .flatMap(results -> {
+                    Map<RecommendationKey, Section> sections = new LinkedHashMap<>();
+                    results.forEach(sections::putAll);
+
+                    // One deduplicated existence pass for every candidate in the batch
+                    LinkedHashSet<String> allCandidates = new LinkedHashSet<>();
+                    sections.values().forEach(section -> allCandidates.addAll(section.candidates()));
+
+                    return moodService.checkAll(allCandidates).map(exists -> {
+                        Map<RecommendationKey, Outcome> out = new HashMap<>();
+                        sections.forEach((key, section) -> {
+                            if (section.degraded() != null) {
+                                out.put(key, new Outcome(section.degraded(), null));
+                                return;
+                            }
+                            if (section.error() != null) {
+                                out.put(key, new Outcome(null, section.error()));
+                                return;
+                            }
+                            List<String> accepted = section.candidates().stream()
+                                    .filter(candidate -> exists.getOrDefault(candidate, true))
+                                    .limit(5)
+                                    .toList();
+                            List<Song> songs = moodService.finishSongs(accepted);
+                            recommendationCache.put(pending.get(key), songs);
+                            out.put(key, new Outcome(songs, null));
+                        });
+                        return out;
+                    });
+                });
+    }
+
+    private Mono<Map<RecommendationKey, Section>> generatePack(List<RecommendationKey> pack, Map<RecommendationKey, MoodRequest> requests) {
+        StringBuilder prompt = new StringBuilder(PROMPT_HEADER);
+        for (int i = 0; i < pack.size(); i++) {
+            prompt.append('\n').append(section(i + 1, requests.get(pack.get(i))));
+        }
+
+        return moodService.callGemini(prompt.toString())
+                .map(response -> demultiplex(moodService.generatedText(response), pack))
+                .onErrorResume(e -> {
+                    Map<RecommendationKey, Section> failed = new LinkedHashMap<>();
+                    pack.forEach(key -> failed.put(key, e instanceof GeminiUnavailableException unavailable
+                            ? new Section(List.of(), null, moodService.degradedSongs(requests.get(key), unavailable))
+                            : new Section(List.of(), e.getMessage())));
+                    return Mono.just(failed);
+                });
+    }
+
+    // Split one answer into the sections of the requests packed into its prompt
+    private Map<RecommendationKey, Section> demultiplex(String generated, List<RecommendationKey> pack) {
+        List<LinkedHashSet<String>> candidates = splitSections(generated, pack.size(), moodService::toCandidate);
+
+        Map<RecommendationKey, Section> out = new LinkedHashMap<>();
+        for (int i = 0; i < pack.size(); i++) {
+            LinkedHashSet<String> found = candidates.get(i);
+            out.put(pack.get(i), found.isEmpty()
+                    ? new Section(List.of(), "No songs returned for this request")
+                    : new Section(List.copyOf(found), null));
+        }
+        return out;
+    }
+
+    // Candidates under each "### n" header, by pack position; lines before the first valid header are ignored
+    static List<LinkedHashSet<String>> splitSections(String generated, int packSize, UnaryOperator<String> toCandidate) {
+        List<LinkedHashSet<String>> candidates = new ArrayList<>();
+        for (int i = 0; i < packSize; i++) candidates.add(new LinkedHashSet<>());
+
+        int current = -1;
+        for (String line : generated.split("\\r?\\n")) {
+            Matcher header = SECTION_HEADER.matcher(line);
+            if (header.matches()) {
+                current = sectionIndex(header.group(1), packSize);
+                continue;
+            }
+            if (current < 0) continue;
+            String candidate = toCandidate.apply(line);
+            if (candidate != null) candidates.get(current).add(candidate);
+        }
+        return candidates;
+    }
+
+    // Header number -> index in the pack, or -1 if out of range; the lines under such a header are ignored
+    private static int sectionIndex(String digits, int packSize) {
+        // Longer than any pack, and would overflow parseInt
+        if (digits.length() > 9) return -1;
+        int n = Integer.parseInt(digits) - 1;
+        return n >= 0 && n < packSize ? n : -1;
+    }
+
+    // Greedily fill prompts in request order until the next item would exceed the token budget
+    static List<List<RecommendationKey>> pack(Map<RecommendationKey, MoodRequest> pending, int promptTokenBudget) {
+        int headerTokens = estimateTokens(PROMPT_HEADER);
+        List<List<RecommendationKey>> packs = new ArrayList<>();
+        List<RecommendationKey> current = new ArrayList<>();
+        int used = headerTokens;
+
+        for (Map.Entry<RecommendationKey, MoodRequest> e : pending.entrySet()) {
+            int cost = estimateTokens(section(current.size() + 1, e.getValue())) + OUTPUT_TOKENS_PER_ITEM;
+            if (!current.isEmpty() && used + cost > promptTokenBudget) {
+                packs.add(current);
+                current = new ArrayList<>();
+                used = headerTokens;
+            }
+            current.add(e.getKey());
+            used += cost;
+        }
+        if (!current.isEmpty()) packs.add(current);
+        return packs;
+    }
+
+    static String section(int number, MoodRequest request) {
+        return "### %d\n5 distinct %s %s songs in %s language. Mood: %s.\n".formatted(
+                number,
+                inline(request.getEra()),
+                inline(request.getMood()),
+                inline(request.getLanguage()),
+                inline(request.getFeeling()));
+    }
+
+    // User text stays on its own line and cannot start with '#', so it can never open another item's section
+    private static String inline(String value) {
+        if (value == null) return "";
+        return value.replaceAll("\\v+", " ").replaceFirst("^[\\s#]+", "").strip();
+    }
+
+    // ~4 characters per token is close enough for budgeting English/Hinglish prompts
+    private static int estimateTokens(String text) {
+        return (text.length() + 3) / 4;
+    }
+
+    /** Answer for a batch shed under overload: every item gets its degraded songs, nothing is generated. */
+    public List<BatchItemResult> shedBatch(List<MoodRequest> requests) {
+        List<BatchItemResult> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            MoodRequest request = requests.get(i);
+            results.add(request == null
+                    ? BatchItemResult.failed(i, "Request is empty")
+                    : ok(i, moodService.shedSongs(request)));
+        }
+        return results;
+    }
+
+    private static BatchItemResult ok(int index, List<Song> songs) {
+        return BatchItemResult.ok(index, songs.stream().map(Song::formatted).toList(), songs.stream().map(Song::toResult).toList());
+    }
+
+    private static List<BatchItemResult> assemble(List<MoodRequest> requests, Map<RecommendationKey, Outcome> byKey) {
+        List<BatchItemResult> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            MoodRequest request = requests.get(i);
+            if (request == null) {
+                results.add(BatchItemResult.failed(i, "Request is empty"));
+                continue;
+            }
+            Outcome outcome = byKey.get(RecommendationKey.of(request));
+            results.add(outcome.error() == null
+                    ? ok(i, outcome.songs())
+                    : BatchItemResult.failed(i, outcome.error()));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,117 @@
+package com.moodify.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client token bucket, implemented as GCRA (generic cell rate algorithm): each client has
+ * a single "theoretical arrival time" that one compare-and-set advances by the emission
+ * interval per request, so there are no locks and no refill timers. A client may be up to
+ * {@code burst} requests ahead of its steady rate; after that it is told how long to wait.
+ * A request can cost several tokens (a batch costs one per item).
+ * Clients idle for a while are forgotten once their bucket is full again (a fresh client starts
+ * with a full bucket anyway).
+ */
+@Component
+public class ClientRateLimiter {
+
+    private final boolean enabled;
+    private final int burst;
+    private final long emissionIntervalNanos;
+    private final long toleranceNanos;
+    private final long idleNanos;
+
+    // client -> theoretical arrival time (System.nanoTime() scale)
+    private final Cache<String, AtomicLong> clients;
+
+    private final Counter allowed;
+    private final Counter rejected;
+
+    public ClientRateLimiter(
+            @Value("${moodify.ratelimit.enabled:true}") boolean enabled,
+            @Value("${moodify.ratelimit.requests-per-second:2}") double requestsPerSecond,
+            @Value("${moodify.ratelimit.burst:10}") int burst,
+            @Value("${moodify.ratelimit.max-clients:100000}") long maxClients,
+            MeterRegistry meterRegistry) {
+        if (requestsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("moodify.ratelimit needs requests-per-second > 0 and burst >= 1");
+        }
+        this.enabled = enabled;
+        this.burst = burst;
+        this.emissionIntervalNanos = (long) (1_000_000_000L / requestsPerSecond);
+        this.toleranceNanos = emissionIntervalNanos * (burst - 1);
+        // A client idle for a full burst's worth of intervals past its arrival time is back to a full bucket
+        this.idleNanos = Math.max(emissionIntervalNanos * burst, 1_000_000_000L);
+        this.clients = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfter(new Expiry<String, AtomicLong>() {
+                    @Override
+                    public long expireAfterCreate(String client, AtomicLong tat, long currentTime) {
+                        return forgetAfter(tat, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String client, AtomicLong tat, long currentTime, long currentDuration) {
+                        return forgetAfter(tat, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String client, AtomicLong tat, long currentTime, long currentDuration) {
+                        return forgetAfter(tat, currentTime);
+                    }
+                })
+                .build();
+        this.allowed = Counter.builder("moodify.ratelimit.requests").tag("result", "allowed").register(meterRegistry);
+        this.rejected = Counter.builder("moodify.ratelimit.requests").tag("result", "rejected").register(meterRegistry);
+        Gauge.builder("moodify.ratelimit.clients", clients, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    // Kept until the client's arrival time has passed and it then stayed idle
+    private long forgetAfter(AtomicLong tat, long now) {
+        long arrival = tat.get();
+        return arrival == Long.MIN_VALUE ? idleNanos : idleNanos + Math.max(0, arrival - now);
+    }
+
+    /** Takes a token for the client: zero if allowed, else how long until the next request would be. */
+    public Duration tryAcquire(String client) {
+        return tryAcquire(client, 1);
+    }
+
+    /**
+     * Takes {@code permits} tokens at once. Allowed once the bucket holds min(permits, burst)
+     * tokens, but the full cost is charged, so a request bigger than the burst leaves the client
+     * in debt and its next requests wait it off. Zero permits are always allowed.
+     */
+    public Duration tryAcquire(String client, int permits) {
+        if (!enabled || permits <= 0) return Duration.ZERO;
+
+        long needed = (long) (Math.min(permits, burst) - 1) * emissionIntervalNanos;
+        long cost = (long) permits * emissionIntervalNanos;
+        AtomicLong tat = clients.get(client, c -> new AtomicLong(Long.MIN_VALUE));
+        long now = System.nanoTime();
+        while (true) {
+            long current = tat.get();
+            long arrival = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+            long wait = arrival + needed - toleranceNanos - now;
+            if (wait > 0) {
+                rejected.increment();
+                return Duration.ofNanos(wait);
+            }
+            if (tat.compareAndSet(current, arrival + cost)) {
+                // Debt beyond the burst must outlive the idle timeout: re-put so expiry sees the new arrival time
+                if (permits > burst) clients.put(client, tat);
+                allowed.increment();
+                return Duration.ZERO;
+            }
+        }
+    }
+}
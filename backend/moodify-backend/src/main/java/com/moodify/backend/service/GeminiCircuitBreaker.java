@@ -0,0 +1,154 @@
+package com.moodify.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Count-based circuit breaker for Gemini calls. Opens when the failure rate over the last
+ * {@code windowSize} calls crosses the threshold. After {@code openDuration}, a few probe
+ * calls are let through (half-open): if they all succeed the circuit closes, and if any
+ * fails it opens again. Each state change starts a new generation; outcomes of calls admitted
+ * in an earlier generation are ignored, so a slow call from before the circuit opened can
+ * neither close nor re-open it.
+ */
+final class GeminiCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeminiCircuitBreaker.class);
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /** Returned by {@link #tryAcquire()} when the call is not permitted. */
+    static final long REFUSED = -1;
+
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int halfOpenProbes;
+
+    // Ring of recent outcomes (true = failure)
+    private final boolean[] window;
+    private int next;
+    private int recorded;
+    private int failuresInWindow;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    private long shortCircuited;
+    private long transitions;
+
+    GeminiCircuitBreaker(double failureRateThreshold, int windowSize, int minimumCalls,
+                         Duration openDuration, int halfOpenProbes) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+    }
+
+    /**
+     * The generation a call may proceed in, or {@link #REFUSED}. Every permitted call must end in
+     * onSuccess, onFailure or onCancel with the generation it was given.
+     */
+    synchronized long tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                shortCircuited++;
+                return REFUSED;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight + probeSuccesses >= halfOpenProbes) {
+                shortCircuited++;
+                return REFUSED;
+            }
+            probesInFlight++;
+        }
+        return generation;
+    }
+
+    synchronized void onSuccess(long admittedIn) {
+        if (admittedIn != generation) return;
+        if (state == State.HALF_OPEN) {
+            probesInFlight = Math.max(0, probesInFlight - 1);
+            if (++probeSuccesses >= halfOpenProbes) transition(State.CLOSED);
+            return;
+        }
+        if (state == State.CLOSED) record(false);
+    }
+
+    synchronized void onFailure(long admittedIn) {
+        if (admittedIn != generation) return;
+        if (state == State.HALF_OPEN) {
+            transition(State.OPEN);
+            return;
+        }
+        if (state != State.CLOSED) return;
+        record(true);
+        if (recorded >= minimumCalls && (double) failuresInWindow / recorded >= failureRateThreshold) {
+            transition(State.OPEN);
+        }
+    }
+
+    // A permitted call ended without an outcome (e.g. the client went away)
+    synchronized void onCancel(long admittedIn) {
+        if (admittedIn != generation) return;
+        if (state == State.HALF_OPEN) probesInFlight = Math.max(0, probesInFlight - 1);
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == window.length) {
+            if (window[next]) failuresInWindow--;
+        } else {
+            recorded++;
+        }
+        window[next] = failure;
+        if (failure) failuresInWindow++;
+        next = (next + 1) % window.length;
+    }
+
+    private void transition(State to) {
+        State from = state;
+        state = to;
+        generation++;
+        transitions++;
+        probesInFlight = 0;
+        probeSuccesses = 0;
+        if (to == State.OPEN) {
+            openedAt = System.nanoTime();
+            logger.warn("Gemini circuit breaker {} -> OPEN ({} failures in last {} calls)", from, failuresInWindow, recorded);
+        } else {
+            logger.info("Gemini circuit breaker {} -> {}", from, to);
+        }
+        if (to == State.CLOSED) {
+            next = 0;
+            recorded = 0;
+            failuresInWindow = 0;
+        }
+    }
+
+    synchronized long shortCircuited() {
+        return shortCircuited;
+    }
+
+    synchronized Map<String, Object> snapshot() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("state", state.name());
+        out.put("failureRate", recorded == 0 ? 0.0 : (double) failuresInWindow / recorded);
+        out.put("shortCircuited", shortCircuited);
+        out.put("transitions", transitions);
+        return out;
+    }
+}
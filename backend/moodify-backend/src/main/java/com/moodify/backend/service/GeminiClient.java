@@ -0,0 +1,501 @@
+package com.moodify.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.moodify.backend.service.GeminiEndpointRouter.Endpoint;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Thin client for the Gemini generateContent API. Requests go to the endpoint (API version +
+ * model) that has recently been healthy and fastest, falling back to the others in turn.
+ * Optionally, when the first attempt is slower than a latency percentile, a hedged request is
+ * sent to an alternate endpoint (or a lighter model) and whichever answers first wins.
+ * Every generation call passes a circuit breaker and an adaptive concurrency limit first;
+ * calls they refuse fail at once with {@link GeminiUnavailableException}. Song lists can be
+ * requested as structured output (see {@link #callGenerateSongs}).
+ */
+@Component
+public class GeminiClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeminiClient.class);
+
+    // API versions the model is served under
+    private static final String[] API_VERSIONS = new String[]{"/v1beta", "/v1"};
+
+    // Structured output (response schema, thinking config) is only sent to this version
+    private static final String STRUCTURED_API_VERSION = "/v1beta";
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    // Answer shape in structured mode: [{"title": ..., "artist": ...}, ...]
+    private static final JsonNode SONGS_SCHEMA = songsSchema();
+
+    // Room for the array brackets and the odd longer name on top of the per-song allowance
+    private static final int SONGS_OUTPUT_TOKENS_OVERHEAD = 64;
+
+    // Shared, pooled client with the Gemini base URL (see HttpClientConfig)
+    private final WebClient webClient;
+
+    @Value("${gemini.api.key}")
+    private String apiKey;
+
+    private final String model;
+    private final GeminiEndpointRouter router;
+    private final GeminiCircuitBreaker breaker;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private final boolean hedgeEnabled;
+    private final String hedgeModel;
+    private final double hedgePercentile;
+    private final Duration hedgeMinDelay;
+    private final Duration hedgeInitialDelay;
+
+    private final boolean structuredEnabled;
+    private final int structuredTokensPerSong;
+    private final int structuredThinkingBudget;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    private record AttemptTimers(Timer success, Timer failure, Timer streamSuccess, Timer streamFailure) {
+    }
+
+    // Timers are registered up front so the hot path never looks meters up
+    private final Map<Endpoint, AttemptTimers> attemptTimers = new HashMap<>();
+
+    // Which of the two racing requests produced the answer
+    private record Answer(String body, boolean fromHedge) {
+    }
+
+    public GeminiClient(
+            @Qualifier("geminiWebClient") WebClient webClient,
+            @Value("${gemini.model:models/gemini-2.5-flash}") String model,
+            @Value("${gemini.routing.failure-threshold:3}") int routingFailureThreshold,
+            @Value("${gemini.hedge.enabled:false}") boolean hedgeEnabled,
+            @Value("${gemini.hedge.model:}") String hedgeModel,
+            @Value("${gemini.hedge.percentile:0.95}") double hedgePercentile,
+            @Value("${gemini.hedge.min-delay:PT1S}") Duration hedgeMinDelay,
+            @Value("${gemini.hedge.initial-delay:PT8S}") Duration hedgeInitialDelay,
+            @Value("${gemini.breaker.failure-rate-threshold:0.5}") double breakerFailureRate,
+            @Value("${gemini.breaker.window-size:20}") int breakerWindowSize,
+            @Value("${gemini.breaker.minimum-calls:10}") int breakerMinimumCalls,
+            @Value("${gemini.breaker.open-duration:PT30S}") Duration breakerOpenDuration,
+            @Value("${gemini.breaker.half-open-probes:3}") int breakerHalfOpenProbes,
+            @Value("${gemini.limit.initial:10}") int initialLimit,
+            @Value("${gemini.limit.min:1}") int minLimit,
+            @Value("${gemini.limit.max:64}") int maxLimit,
+            @Value("${gemini.limit.latency-threshold:PT10S}") Duration limitLatencyThreshold,
+            @Value("${gemini.structured.enabled:true}") boolean structuredEnabled,
+            @Value("${gemini.structured.tokens-per-song:40}") int structuredTokensPerSong,
+            @Value("${gemini.structured.thinking-budget:0}") int structuredThinkingBudget,
+            MeterRegistry meterRegistry) {
+        this.webClient = webClient;
+        this.model = model;
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgeModel = hedgeModel == null || hedgeModel.isBlank() ? null : hedgeModel;
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeMinDelay = hedgeMinDelay;
+        this.hedgeInitialDelay = hedgeInitialDelay;
+        this.structuredEnabled = structuredEnabled;
+        this.structuredTokensPerSong = structuredTokensPerSong;
+        this.structuredThinkingBudget = structuredThinkingBudget;
+
+        List<Endpoint> endpoints = new ArrayList<>();
+        List<Endpoint> hedgeOnly = new ArrayList<>();
+        for (String version : API_VERSIONS) {
+            endpoints.add(new Endpoint(version, model));
+            if (this.hedgeModel != null) hedgeOnly.add(new Endpoint(version, this.hedgeModel));
+        }
+        this.router = new GeminiEndpointRouter(endpoints, hedgeOnly, routingFailureThreshold);
+        this.breaker = new GeminiCircuitBreaker(breakerFailureRate, breakerWindowSize, breakerMinimumCalls,
+                breakerOpenDuration, breakerHalfOpenProbes);
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, limitLatencyThreshold);
+
+        List<Endpoint> all = new ArrayList<>(endpoints);
+        all.addAll(hedgeOnly);
+        for (Endpoint endpoint : all) {
+            attemptTimers.put(endpoint, new AttemptTimers(
+                    attemptTimer(meterRegistry, endpoint, "generate", "success"),
+                    attemptTimer(meterRegistry, endpoint, "generate", "failure"),
+                    attemptTimer(meterRegistry, endpoint, "stream", "success"),
+                    attemptTimer(meterRegistry, endpoint, "stream", "failure")));
+        }
+        Gauge.builder("moodify.gemini.breaker.state", breaker, b -> b.state().ordinal())
+                .description("Circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+        FunctionCounter.builder("moodify.gemini.breaker.short.circuited", breaker, GeminiCircuitBreaker::shortCircuited)
+                .register(meterRegistry);
+        Gauge.builder("moodify.gemini.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+                .register(meterRegistry);
+        Gauge.builder("moodify.gemini.concurrency.in.flight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+                .register(meterRegistry);
+        FunctionCounter.builder("moodify.gemini.concurrency.rejected", limiter, AdaptiveConcurrencyLimiter::rejected)
+                .register(meterRegistry);
+        FunctionCounter.builder("moodify.gemini.hedges", hedges, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("moodify.gemini.hedge.wins", hedgeWins, LongAdder::sum).register(meterRegistry);
+    }
+
+    // Latency of one attempt against one endpoint (for streams: time to the first text)
+    private static Timer attemptTimer(MeterRegistry registry, Endpoint endpoint, String mode, String outcome) {
+        return Timer.builder("moodify.gemini.attempt")
+                .tag("api.version", endpoint.version().substring(1))
+                .tag("model", endpoint.model())
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    /**
+     * Generate content for the prompt and return the raw JSON response. Endpoints are tried in
+     * routing order; the first non-empty answer wins.
+     */
+    public Mono<String> callGenerateSimple(String prompt) {
+        String bodyContent = requestBody(prompt);
+        return callGenerate(endpoint -> bodyContent);
+    }
+
+    /**
+     * Generate a list of about {@code count} songs and return the raw JSON response. Where
+     * available (v1beta) the request asks for structured output: a JSON array of
+     * {@code {title, artist}} objects fixed by a response schema, with output tokens capped for
+     * the expected count and a low thinking budget, so the answer is short, comes back sooner
+     * and needs no clean-up ({@link GeminiResponseParser#structuredCandidates}). Other endpoints,
+     * and all of them when {@code gemini.structured.enabled} is off, get the text prompt instead.
+     */
+    public Mono<String> callGenerateSongs(String structuredPrompt, String textPrompt, int count) {
+        String textBody = requestBody(textPrompt);
+        String structuredBody = structuredEnabled ? songsRequestBody(structuredPrompt, count) : null;
+        return callGenerate(endpoint -> structuredBody != null && endpoint.version().equals(STRUCTURED_API_VERSION)
+                ? structuredBody
+                : textBody);
+    }
+
+    // The request body can differ per endpoint, since not every API version takes every field
+    private Mono<String> callGenerate(Function<Endpoint, String> bodyFor) {
+        return Mono.defer(() -> {
+            Permit permit = admit();
+            requests.increment();
+            List<Endpoint> order = router.order();
+            Endpoint primary = order.get(0);
+            Endpoint alternate = hedgeEnabled ? hedgeTarget(order) : null;
+
+            Mono<String> first = alternate == null
+                    ? attempt(primary, bodyFor.apply(primary))
+                    : hedged(primary, alternate, bodyFor);
+
+            // Endpoints not already raced above are tried one after the other
+            List<Endpoint> remaining = new ArrayList<>(order.subList(1, order.size()));
+            if (alternate != null) remaining.remove(alternate);
+
+            return first.onErrorResume(e -> Flux.fromIterable(remaining)
+                    .concatMap(endpoint -> attempt(endpoint, bodyFor.apply(endpoint)).onErrorResume(err -> Mono.empty()))
+                    .next())
+                    .switchIfEmpty(Mono.error(() -> new RuntimeException("All generation attempts failed for model " + model)))
+                    .doOnSuccess(body -> permit.succeeded())
+                    .doOnError(e -> permit.failed())
+                    .doOnCancel(permit::cancelled);
+        });
+    }
+
+    /**
+     * Streaming counterpart of {@link #callGenerateSimple}: calls {@code streamGenerateContent}
+     * with server-sent events and emits the text of each chunk as it arrives. The next endpoint
+     * is only tried if an attempt fails before producing any text.
+     */
+    public Flux<String> streamGenerateSimple(String prompt) {
+        String bodyContent = requestBody(prompt);
+
+        return Flux.defer(() -> {
+            Permit permit = admit();
+            requests.increment();
+            AtomicBoolean receiving = new AtomicBoolean();
+            List<Endpoint> order = router.order();
+            Flux<String> attempts = Flux.error(new RuntimeException("All generation attempts failed for model " + model));
+            for (int i = order.size() - 1; i >= 0; i--) {
+                Endpoint endpoint = order.get(i);
+                Flux<String> next = attempts;
+                attempts = streamAttempt(endpoint, bodyContent)
+                        .doOnNext(text -> receiving.set(true))
+                        .onErrorResume(e -> {
+                            if (receiving.get()) return Flux.error(e);
+                            logger.warn("Streaming attempt {} failed for model {}: {}", endpoint.version(), endpoint.model(), e.getMessage());
+                            return next;
+                        });
+            }
+            return attempts
+                    .doOnComplete(permit::succeeded)
+                    .doOnError(e -> permit.failed())
+                    // Callers usually stop reading once they have enough songs; text received means Gemini was fine
+                    .doOnCancel(() -> {
+                        if (receiving.get()) permit.succeeded();
+                        else permit.cancelled();
+                    });
+        });
+    }
+
+    // Admission through the breaker and the concurrency limit; the permit reports the call's outcome to both
+    private Permit admit() {
+        long generation = breaker.tryAcquire();
+        if (generation == GeminiCircuitBreaker.REFUSED) {
+            throw new GeminiUnavailableException("Gemini circuit breaker is open");
+        }
+        if (!limiter.tryAcquire()) {
+            breaker.onCancel(generation);
+            throw new GeminiUnavailableException("Gemini concurrency limit reached (" + limiter.limit() + ")");
+        }
+        return new Permit(generation);
+    }
+
+    private final class Permit {
+        // Breaker generation the call was admitted in; its outcome is ignored after a state change
+        private final long generation;
+        private final long start = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(long generation) {
+            this.generation = generation;
+        }
+
+        void succeeded() {
+            if (!released.compareAndSet(false, true)) return;
+            limiter.release(System.nanoTime() - start, false);
+            breaker.onSuccess(generation);
+        }
+
+        void failed() {
+            if (!released.compareAndSet(false, true)) return;
+            limiter.release(System.nanoTime() - start, true);
+            breaker.onFailure(generation);
+        }
+
+        // The caller went away (or took only part of a stream): no outcome to learn from
+        void cancelled() {
+            if (!released.compareAndSet(false, true)) return;
+            limiter.release();
+            breaker.onCancel(generation);
+        }
+    }
+
+    // Race the primary against a delayed request to the alternate; a primary failure starts the alternate at once
+    private Mono<String> hedged(Endpoint primary, Endpoint alternate, Function<Endpoint, String> bodyFor) {
+        return Mono.defer(() -> {
+            Duration delay = hedgeDelay(primary);
+            Sinks.Empty<Void> primaryFailed = Sinks.empty();
+
+            Mono<Answer> first = attempt(primary, bodyFor.apply(primary))
+                    .doOnError(e -> primaryFailed.tryEmitEmpty())
+                    .map(body -> new Answer(body, false));
+
+            Mono<Answer> second = Mono.firstWithSignal(
+                            Mono.delay(delay).thenReturn(true),
+                            primaryFailed.asMono().thenReturn(false))
+                    .flatMap(isHedge -> {
+                        if (isHedge) {
+                            hedges.increment();
+                            logger.debug("Hedging Gemini request to {} after {} ms", alternate, delay.toMillis());
+                        }
+                        return attempt(alternate, bodyFor.apply(alternate)).map(body -> new Answer(body, isHedge));
+                    });
+
+            return Mono.firstWithValue(first, second)
+                    .doOnNext(answer -> {
+                        if (answer.fromHedge()) hedgeWins.increment();
+                    })
+                    .map(Answer::body);
+        });
+    }
+
+    private Endpoint hedgeTarget(List<Endpoint> order) {
+        if (hedgeModel != null) return new Endpoint(order.get(0).version(), hedgeModel);
+        return order.size() > 1 ? order.get(1) : null;
+    }
+
+    private Duration hedgeDelay(Endpoint primary) {
+        long p = router.stats(primary).percentile(hedgePercentile);
+        if (p < 0) return hedgeInitialDelay;
+        return Duration.ofMillis(Math.max(p, hedgeMinDelay.toMillis()));
+    }
+
+    private Mono<String> attempt(Endpoint endpoint, String bodyContent) {
+        String pathContent = endpoint.path("generateContent");
+        AttemptTimers timers = attemptTimers.get(endpoint);
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            logger.debug("Attempting POST {}", pathContent);
+            return webClient.post()
+                    .uri(uriBuilder -> uriBuilder
+                            .path(pathContent)
+                            .queryParam("key", apiKey)
+                            .build())
+                    .header("Content-Type", "application/json")
+                    .bodyValue(bodyContent)
+                    .exchangeToMono(clientResponse -> clientResponse.bodyToMono(String.class)
+                            .flatMap(bodyStr -> {
+                                if (clientResponse.statusCode().is2xxSuccessful()) return Mono.just(bodyStr);
+                                return Mono.error(new RuntimeException("API error (" + pathContent + "): " + clientResponse.statusCode() + " - " + bodyStr));
+                            }))
+                    .filter(resp -> !resp.isEmpty())
+                    .switchIfEmpty(Mono.error(() -> new RuntimeException("Empty response (" + pathContent + ")")))
+                    .doOnNext(resp -> {
+                        long elapsed = System.nanoTime() - start;
+                        timers.success().record(elapsed, TimeUnit.NANOSECONDS);
+                        router.recordSuccess(endpoint, elapsed / 1_000_000);
+                    })
+                    .doOnError(e -> {
+                        timers.failure().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        router.recordFailure(endpoint);
+                        logger.warn("Attempt {} failed for model {}: {}", endpoint.version(), endpoint.model(), e.getMessage());
+                    });
+        });
+    }
+
+    private Flux<String> streamAttempt(Endpoint endpoint, String bodyContent) {
+        String pathContent = endpoint.path("streamGenerateContent");
+        AttemptTimers timers = attemptTimers.get(endpoint);
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean first = new AtomicBoolean(true);
+            logger.debug("Attempting streaming POST {}", pathContent);
+            return webClient.post()
+                    .uri(uriBuilder -> uriBuilder
+                            .path(pathContent)
+                            .queryParam("alt", "sse")
+                            .queryParam("key", apiKey)
+                            .build())
+                    .header("Content-Type", "application/json")
+                    .bodyValue(bodyContent)
+                    .retrieve()
+                    .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {})
+                    .mapNotNull(ServerSentEvent::data)
+                    .map(this::extractChunkText)
+                    .filter(text -> !text.isEmpty())
+                    // Streaming latency is measured to the first token
+                    .doOnNext(text -> {
+                        if (first.compareAndSet(true, false)) {
+                            long elapsed = System.nanoTime() - start;
+                            timers.streamSuccess().record(elapsed, TimeUnit.NANOSECONDS);
+                            router.recordSuccess(endpoint, elapsed / 1_000_000);
+                        }
+                    })
+                    .doOnError(e -> {
+                        if (first.get()) {
+                            timers.streamFailure().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                            router.recordFailure(endpoint);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Periodically check endpoints that failed recently with a cheap model-metadata request, so
+     * they return to rotation once they recover without risking user requests on them.
+     */
+    @Scheduled(initialDelayString = "${gemini.routing.reprobe-interval:PT1M}",
+            fixedDelayString = "${gemini.routing.reprobe-interval:PT1M}")
+    void reprobe() {
+        for (Endpoint endpoint : router.unhealthy()) {
+            webClient.get()
+                    .uri(uriBuilder -> uriBuilder
+                            .path(endpoint.version() + "/" + endpoint.model())
+                            .queryParam("key", apiKey)
+                            .build())
+                    .retrieve()
+                    .toBodilessEntity()
+                    .timeout(Duration.ofSeconds(5))
+                    .subscribe(
+                            ok -> {
+                                logger.info("Gemini endpoint {} is reachable again", endpoint);
+                                router.markHealthy(endpoint);
+                            },
+                            e -> logger.debug("Re-probe of {} failed: {}", endpoint, e.getMessage()));
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>(router.snapshot());
+        long total = requests.sum();
+        long sent = hedges.sum();
+        out.put("requests", total);
+        out.put("hedgeEnabled", hedgeEnabled);
+        out.put("hedges", sent);
+        out.put("hedgeWins", hedgeWins.sum());
+        out.put("hedgeRate", total == 0 ? 0.0 : (double) sent / total);
+        out.put("breaker", breaker.snapshot());
+        out.put("concurrency", limiter.snapshot());
+        return out;
+    }
+
+    // {"contents": [{"parts": [{"text": prompt}]}]}, serialized so any prompt text is escaped
+    static String requestBody(String prompt) {
+        return contents(prompt).toString();
+    }
+
+    private String songsRequestBody(String prompt, int count) {
+        ObjectNode body = contents(prompt);
+        ObjectNode config = body.putObject("generationConfig");
+        config.put("responseMimeType", "application/json");
+        config.set("responseSchema", SONGS_SCHEMA);
+        config.put("maxOutputTokens", SONGS_OUTPUT_TOKENS_OVERHEAD + count * structuredTokensPerSong);
+        // Negative leaves thinking to the model's default (models without thinking reject the field)
+        if (structuredThinkingBudget >= 0) {
+            config.putObject("thinkingConfig").put("thinkingBudget", structuredThinkingBudget);
+        }
+        return body.toString();
+    }
+
+    private static ObjectNode contents(String prompt) {
+        ObjectNode body = JSON.createObjectNode();
+        body.putArray("contents").addObject().putArray("parts").addObject().put("text", prompt);
+        return body;
+    }
+
+    private static JsonNode songsSchema() {
+        ObjectNode song = JSON.createObjectNode().put("type", "OBJECT");
+        ObjectNode properties = song.putObject("properties");
+        properties.putObject("title").put("type", "STRING");
+        properties.putObject("artist").put("type", "STRING").put("description", "Main artist only");
+        song.putArray("required").add("title").add("artist");
+        song.putArray("propertyOrdering").add("title").add("artist");
+        ObjectNode schema = JSON.createObjectNode().put("type", "ARRAY");
+        schema.set("items", song);
+        return schema;
+    }
+
+    // Text of one streamed chunk, untrimmed so line breaks between chunks survive
+    private String extractChunkText(String chunk) {
+        String text = GeminiResponseParser.partsText(chunk, "");
+        return text == null ? "" : text;
+    }
+}
@@ -0,0 +1,193 @@
+package com.moodify.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers which Gemini endpoint (API version + model) is healthy and fast, so requests go
+ * there first instead of always starting with {@code /v1beta}. The preferred endpoint is
+ * sticky: it only changes when it fails or another endpoint is clearly faster. An endpoint
+ * that failed several times in a row is skipped until it succeeds again (via traffic or a
+ * background re-probe); a single failure is treated as noise.
+ */
+final class GeminiEndpointRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeminiEndpointRouter.class);
+
+    // Weight of the newest sample in the moving latency average
+    private static final double EWMA_ALPHA = 0.2;
+
+    // Another endpoint must be this much faster before the preferred one is replaced
+    private static final double SWITCH_RATIO = 0.8;
+
+    // Latency samples kept per endpoint for percentile estimates
+    private static final int WINDOW = 128;
+
+    // Percentile estimates need at least this many samples
+    private static final int MIN_SAMPLES = 20;
+
+    record Endpoint(String version, String model) {
+        String path(String method) {
+            return version + "/" + model + ":" + method;
+        }
+
+        @Override
+        public String toString() {
+            return version + "/" + model;
+        }
+    }
+
+    static final class EndpointStats {
+        private final int failureThreshold;
+        private final long[] samples = new long[WINDOW];
+        private int sampleCount;
+        private int next;
+        private double ewmaMillis = -1;
+        private int consecutiveFailures;
+        private long successes;
+        private long failures;
+
+        EndpointStats(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        synchronized void recordSuccess(long millis) {
+            samples[next] = millis;
+            next = (next + 1) % WINDOW;
+            if (sampleCount < WINDOW) sampleCount++;
+            ewmaMillis = ewmaMillis < 0 ? millis : EWMA_ALPHA * millis + (1 - EWMA_ALPHA) * ewmaMillis;
+            consecutiveFailures = 0;
+            successes++;
+        }
+
+        synchronized void recordFailure() {
+            consecutiveFailures++;
+            failures++;
+        }
+
+        synchronized void markHealthy() {
+            consecutiveFailures = 0;
+        }
+
+        synchronized boolean healthy() {
+            return consecutiveFailures < failureThreshold;
+        }
+
+        // Unknown latency sorts after measured endpoints
+        synchronized double ewma() {
+            return ewmaMillis < 0 ? Double.MAX_VALUE : ewmaMillis;
+        }
+
+        /** Latency percentile in millis over the recent window, or -1 with too few samples. */
+        synchronized long percentile(double p) {
+            if (sampleCount < MIN_SAMPLES) return -1;
+            long[] sorted = Arrays.copyOf(samples, sampleCount);
+            Arrays.sort(sorted);
+            int idx = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(idx, sorted.length - 1))];
+        }
+
+        synchronized Map<String, Object> snapshot() {
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("healthy", consecutiveFailures < failureThreshold);
+            out.put("consecutiveFailures", consecutiveFailures);
+            out.put("ewmaMillis", ewmaMillis < 0 ? null : Math.round(ewmaMillis));
+            out.put("successes", successes);
+            out.put("failures", failures);
+            return out;
+        }
+    }
+
+    private final List<Endpoint> endpoints;
+    private final Map<Endpoint, EndpointStats> stats = new LinkedHashMap<>();
+    private volatile Endpoint preferred;
+
+    // hedgeOnly endpoints (e.g. a lighter model) are tracked but never routed to as primary;
+    // an endpoint turns unhealthy after failureThreshold consecutive failures
+    GeminiEndpointRouter(List<Endpoint> endpoints, List<Endpoint> hedgeOnly, int failureThreshold) {
+        if (failureThreshold < 1) throw new IllegalArgumentException("failureThreshold must be >= 1");
+        this.endpoints = List.copyOf(endpoints);
+        for (Endpoint e : endpoints) stats.put(e, new EndpointStats(failureThreshold));
+        for (Endpoint e : hedgeOnly) stats.putIfAbsent(e, new EndpointStats(failureThreshold));
+        this.preferred = endpoints.get(0);
+    }
+
+    /** Endpoints in the order they should be tried: preferred, then healthy by latency, then unhealthy. */
+    List<Endpoint> order() {
+        Endpoint first = preferred;
+        List<Endpoint> rest = new ArrayList<>(endpoints);
+        rest.remove(first);
+        rest.sort(Comparator.comparing((Endpoint e) -> !stats.get(e).healthy())
+                .thenComparingDouble(e -> stats.get(e).ewma()));
+        List<Endpoint> out = new ArrayList<>(endpoints.size());
+        out.add(first);
+        out.addAll(rest);
+        return out;
+    }
+
+    EndpointStats stats(Endpoint endpoint) {
+        return stats.get(endpoint);
+    }
+
+    List<Endpoint> unhealthy() {
+        return stats.keySet().stream().filter(e -> !stats.get(e).healthy()).toList();
+    }
+
+    void recordSuccess(Endpoint endpoint, long millis) {
+        EndpointStats s = stats.get(endpoint);
+        if (s == null) return;
+        s.recordSuccess(millis);
+        reconsider();
+    }
+
+    void recordFailure(Endpoint endpoint) {
+        EndpointStats s = stats.get(endpoint);
+        if (s == null) return;
+        s.recordFailure();
+        reconsider();
+    }
+
+    void markHealthy(Endpoint endpoint) {
+        EndpointStats s = stats.get(endpoint);
+        if (s == null) return;
+        s.markHealthy();
+    }
+
+    private synchronized void reconsider() {
+        Endpoint current = preferred;
+        EndpointStats cur = stats.get(current);
+
+        // Fastest healthy alternative
+        Endpoint fastest = null;
+        for (Endpoint e : endpoints) {
+            if (e.equals(current) || !stats.get(e).healthy()) continue;
+            if (fastest == null || stats.get(e).ewma() < stats.get(fastest).ewma()) fastest = e;
+        }
+        if (fastest == null) return;
+
+        if (!cur.healthy() || stats.get(fastest).ewma() < cur.ewma() * SWITCH_RATIO) {
+            logger.info("Gemini routing: preferred endpoint {} -> {}", current, fastest);
+            preferred = fastest;
+        }
+    }
+
+    Endpoint preferred() {
+        return preferred;
+    }
+
+    Map<String, Object> snapshot() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("preferred", preferred.toString());
+        Map<String, Object> perEndpoint = new LinkedHashMap<>();
+        stats.forEach((e, s) -> perEndpoint.put(e.toString(), s.snapshot()));
+        out.put("endpoints", perEndpoint);
+        return out;
+    }
+}
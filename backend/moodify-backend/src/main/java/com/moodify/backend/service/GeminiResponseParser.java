@@ -0,0 +1,372 @@
+package com.moodify.backend.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns a raw Gemini response into normalized "Title - Artist" candidates. The usual
+ * {@code candidates[].content.parts[].text} shape is read in one pass with a streaming
+ * parser, without building a JSON tree; other shapes and malformed responses go through
+ * the older tree-based extraction. Lines are normalized by hand rather than with regexes.
+ * Structured answers (a JSON array of songs, see {@link #structuredCandidates}) skip the text
+ * heuristics altogether.
+ * Stateless apart from the shared ObjectMapper, so one instance can be used concurrently.
+ */
+final class GeminiResponseParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeminiResponseParser.class);
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    // Embedded-JSON clean-up (see sanitizeGeneratedTextIfNeeded)
+    private static final Pattern EMBEDDED_TEXT = Pattern.compile("\\\"text\\\"\s*:\s*\\\"([\\s\\S]*?)\\\"");
+    private static final Pattern ESCAPED_QUOTE = Pattern.compile("\\\\\"");
+    private static final Pattern TEXT_KEY = Pattern.compile("\\\"text\\\"\s*:\s*\\\"");
+    private static final Pattern QUOTE_NOISE = Pattern.compile("\\\"\\s*,?");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Generated song text from a raw Gemini response
+    String generatedText(String response) {
+        String text = partsText(response, "\n");
+        if (text != null) {
+            // The model sometimes wraps its answer in JSON of its own, e.g. {"text":"..."}
+            return looksLikeJson(text) ? sanitizeGeneratedTextIfNeeded(text) : text;
+        }
+
+        // Try to extract generated textual content reliably from JSON responses (Gemini / Text-Bison)
+        String generated = extractGeneratedText(response);
+
+        // If the generated string itself contains embedded JSON fragments (e.g., '"text":"...') try to sanitize
+        return sanitizeGeneratedTextIfNeeded(generated);
+    }
+
+    /**
+     * Texts of all {@code candidates[].content.parts[]} joined with the delimiter, or null if
+     * the JSON has no such text or cannot be parsed. Reads the input once, skipping everything
+     * else (usage metadata, safety ratings, ...) without materializing it.
+     */
+    static String partsText(String json, String delimiter) {
+        try (JsonParser p = JSON.createParser(json)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return null;
+            StringBuilder sb = null;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("candidates".equals(field) && value == JsonToken.START_ARRAY) {
+                    while ((value = p.nextToken()) != JsonToken.END_ARRAY) {
+                        if (value == JsonToken.START_OBJECT) sb = readCandidate(p, sb, delimiter);
+                        else p.skipChildren();
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+            return sb == null ? null : sb.toString();
+        } catch (IOException e) {
+            logger.debug("Streaming extraction failed, using tree-based parsing: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // Positioned on a candidate's START_OBJECT; returns positioned on its END_OBJECT
+    private static StringBuilder readCandidate(JsonParser p, StringBuilder sb, String delimiter) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("content".equals(field) && value == JsonToken.START_OBJECT) {
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String contentField = p.currentName();
+                    JsonToken contentValue = p.nextToken();
+                    if ("parts".equals(contentField) && contentValue == JsonToken.START_ARRAY) {
+                        while ((contentValue = p.nextToken()) != JsonToken.END_ARRAY) {
+                            if (contentValue == JsonToken.START_OBJECT) sb = readPart(p, sb, delimiter);
+                            else p.skipChildren();
+                        }
+                    } else {
+                        p.skipChildren();
+                    }
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+        return sb;
+    }
+
+    private static StringBuilder readPart(JsonParser p, StringBuilder sb, String delimiter) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("text".equals(field) && value == JsonToken.VALUE_STRING) {
+                if (sb == null) sb = new StringBuilder(p.getTextLength() + 16);
+                else sb.append(delimiter);
+                sb.append(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+            } else {
+                p.skipChildren();
+            }
+        }
+        return sb;
+    }
+
+    /**
+     * Candidates from a structured answer: the generated text is a JSON array of
+     * {@code {"title", "artist"}} objects (plain "Title - Artist" strings are taken too). Null
+     * if the answer is not such an array, so the caller can use the text heuristics instead.
+     * An answer cut off at the output token limit still yields the songs completed before the
+     * cut.
+     */
+    List<String> structuredCandidates(String response) {
+        String text = partsText(response, "");
+        if (text == null || !startsArray(text)) return null;
+
+        LinkedHashSet<String> candidates = new LinkedHashSet<>();
+        try (JsonParser p = JSON.createParser(text)) {
+            p.nextToken();
+            JsonToken token;
+            while ((token = p.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                String candidate = switch (token) {
+                    case START_OBJECT -> readSong(p);
+                    case VALUE_STRING -> toCandidate(p.getText());
+                    default -> {
+                        p.skipChildren();
+                        yield null;
+                    }
+                };
+                if (candidate != null) candidates.add(candidate);
+            }
+        } catch (IOException e) {
+            if (candidates.isEmpty()) {
+                logger.debug("Unreadable structured answer, using text parsing: {}", e.getMessage());
+                return null;
+            }
+            logger.debug("Structured answer ends early, keeping {} songs: {}", candidates.size(), e.getMessage());
+        }
+        return List.copyOf(candidates);
+    }
+
+    private static boolean startsArray(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c > ' ') return c == '[';
+        }
+        return false;
+    }
+
+    // Positioned on a song's START_OBJECT; returns positioned on its END_OBJECT
+    private static String readSong(JsonParser p) throws IOException {
+        String title = null;
+        String artist = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if (value == JsonToken.VALUE_STRING && "title".equals(field)) title = p.getText().trim();
+            else if (value == JsonToken.VALUE_STRING && "artist".equals(field)) artist = p.getText();
+            else p.skipChildren();
+        }
+        if (title == null || title.isEmpty() || artist == null) return null;
+        // Same rule as for text lines: only the first listed artist is kept
+        int comma = artist.indexOf(',');
+        artist = (comma < 0 ? artist : artist.substring(0, comma)).trim();
+        return artist.isEmpty() ? null : title + " - " + artist;
+    }
+
+    private static boolean looksLikeJson(String text) {
+        String t = text.trim();
+        return text.contains("\"text\"") || t.startsWith("{") || t.startsWith("[");
+    }
+
+    // Split into lines, normalize each candidate, dedupe while preserving order
+    List<String> candidates(String generated) {
+        LinkedHashSet<String> candidates = new LinkedHashSet<>();
+
+        int start = 0;
+        int length = generated.length();
+        while (start <= length) {
+            int nl = generated.indexOf('\n', start);
+            int end = nl < 0 ? length : nl;
+            String normalized = toCandidate(generated, start, end);
+            if (normalized != null) {
+                candidates.add(normalized);
+            }
+            if (nl < 0) break;
+            start = nl + 1;
+        }
+        return List.copyOf(candidates);
+    }
+
+    // One generated line -> normalized "Title - Artist", or null if it is not a usable song line
+    String toCandidate(String raw) {
+        return toCandidate(raw, 0, raw.length());
+    }
+
+    private static String toCandidate(String line, int from, int to) {
+        // trim (same rule as String.trim: anything up to ' ')
+        while (from < to && line.charAt(from) <= ' ') from++;
+        while (to > from && line.charAt(to - 1) <= ' ') to--;
+        if (from == to) return null;
+
+        // remove leading numbering like '1.' or '1)'
+        int i = from;
+        while (i < to && isDigit(line.charAt(i))) i++;
+        if (i > from) {
+            if (i < to && (line.charAt(i) == '.' || line.charAt(i) == ')')) i++;
+            while (i < to && isRegexSpace(line.charAt(i))) i++;
+            from = i;
+        }
+        if (from == to) return null;
+
+        return normalizeSongLine(line, from, to);
+    }
+
+    // "Title - Artist" (or "Title-Artist", or "Title words Artist"); only the first listed artist is kept
+    private static String normalizeSongLine(String s, int from, int to) {
+        // We expect a format like "Title - Artist" (dash used as separator). Try to be forgiving.
+        int sep = indexOf(s, " - ", from, to);
+        int sepLength = 3;
+        if (sep < 0) {
+            // fallback: if there's a dash without spaces
+            sep = indexOf(s, "-", from, to);
+            sepLength = 1;
+        }
+        if (sep >= 0) {
+            String title = s.substring(from, sep).trim();
+            int artistEnd = indexOf(s, ",", sep + sepLength, to);
+            // If artist has extra commas listing many names, keep the first one
+            String artist = s.substring(sep + sepLength, artistEnd < 0 ? to : artistEnd).trim();
+            return title + " - " + artist;
+        }
+        // Not in a parsable format - try to heuristically split the last word as artist (risky)
+        int lastSpace = s.lastIndexOf(' ', to - 1);
+        if (lastSpace >= from) {
+            return s.substring(from, lastSpace) + " - " + s.substring(lastSpace + 1, to);
+        }
+        return null;
+    }
+
+    // Like String.indexOf, but only matches lying entirely within [from, to)
+    private static int indexOf(String s, String needle, int from, int to) {
+        char first = needle.charAt(0);
+        int last = to - needle.length();
+        for (int i = from; i <= last; i++) {
+            if (s.charAt(i) == first && s.startsWith(needle, i)) return i;
+        }
+        return -1;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // Characters matched by the regex class \s
+    private static boolean isRegexSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // Tree-based extraction for the other response shapes (outputs, candidates[].output, ...)
+    private String extractGeneratedText(String response) {
+        try {
+            JsonNode root = objectMapper.readTree(response);
+
+            // 1) If 'candidates' array is present, extract text pieces
+            if (root.has("candidates")) {
+                StringBuilder sb = new StringBuilder();
+                for (JsonNode cand : root.withArray("candidates")) {
+                    if (cand.has("content")) {
+                        for (JsonNode part : cand.withArray("content")) {
+                            if (part.has("text")) {
+                                sb.append(part.get("text").asText()).append("\n");
+                            } else {
+                                // sometimes content entries are objects with nested 'text'
+                                String maybe = part.toString();
+                                sb.append(maybe).append("\n");
+                            }
+                        }
+                    } else if (cand.has("output")) {
+                        sb.append(cand.get("output").asText()).append("\n");
+                    }
+                }
+                String out = sb.toString().trim();
+                if (!out.isEmpty()) return out;
+            }
+
+            // 2) If 'outputs' array is present (different response shape)
+            if (root.has("outputs")) {
+                StringBuilder sb = new StringBuilder();
+                for (JsonNode out : root.withArray("outputs")) {
+                    if (out.has("content")) {
+                        for (JsonNode part : out.withArray("content")) {
+                            if (part.has("text")) sb.append(part.get("text").asText()).append("\n");
+                            else sb.append(part.toString()).append("\n");
+                        }
+                    } else if (out.has("text")) {
+                        sb.append(out.get("text").asText()).append("\n");
+                    }
+                }
+                String o = sb.toString().trim();
+                if (!o.isEmpty()) return o;
+            }
+
+            // 3) As a fallback, pull all 'text' fields anywhere in the JSON
+            List<String> texts = root.findValuesAsText("text");
+            if (!texts.isEmpty()) {
+                return String.join("\n", texts);
+            }
+
+        } catch (Exception e) {
+            logger.warn("Failed to parse generated JSON, falling back to raw response: {}", e.getMessage());
+        }
+
+        // fallback: return raw string
+        return response;
+    }
+
+
+    /**
+     * If the generated text appears to contain embedded JSON fragments such as
+     * '"text":"My Immortal - ...\nBecause of You - ..."', try to parse that JSON
+     * and extract the inner text fields (unescaped) so the UI shows clean song lines.
+     */
+    private String sanitizeGeneratedTextIfNeeded(String generated) {
+        if (generated == null || generated.isEmpty()) return generated;
+
+        // Quick heuristic: if it contains a "text" key or looks like JSON, attempt to parse
+        if (generated.contains("\"text\"") || generated.trim().startsWith("{") || generated.trim().startsWith("[")) {
+            try {
+                JsonNode root = objectMapper.readTree(generated);
+                // If it's a value node (a string with embedded JSON), try to find text fields anywhere
+                List<String> texts = root.findValuesAsText("text");
+                if (!texts.isEmpty()) {
+                    return String.join("\n", texts);
+                }
+            } catch (Exception e) {
+                // If parsing the whole string fails, try to regex-extract an inner "text":"..." value
+                try {
+                    Matcher m = EMBEDDED_TEXT.matcher(generated);
+                    if (m.find()) {
+                        String inner = m.group(1);
+                        // Unescape JSON-style escape sequences by letting ObjectMapper read it as a JSON string
+                        String unescaped = objectMapper.readValue("\"" + ESCAPED_QUOTE.matcher(inner).replaceAll("\\\\\\\"") + "\"", String.class);
+                        return unescaped;
+                    }
+                } catch (Exception e2) {
+                    logger.warn("Failed to sanitize generated JSON fragment: {}", e2.getMessage());
+                }
+            }
+        }
+        // If nothing else, strip obvious JSON-like noise (e.g., leading '"text":')
+        String cleaned = QUOTE_NOISE.matcher(TEXT_KEY.matcher(generated).replaceAll("")).replaceAll("").trim();
+        return cleaned;
+    }
+}
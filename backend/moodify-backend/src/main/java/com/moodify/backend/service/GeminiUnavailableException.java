@@ -0,0 +1,12 @@
+package com.moodify.backend.service;
+
+/**
+ * Gemini was not called because the circuit breaker is open or the concurrency limit is
+ * reached. Callers answer such requests from a degraded path instead of waiting.
+ */
+public class GeminiUnavailableException extends RuntimeException {
+
+    public GeminiUnavailableException(String message) {
+        super(message);
+    }
+}
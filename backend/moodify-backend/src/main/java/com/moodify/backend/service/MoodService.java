@@ -1,53 +1,305 @@
 package com.moodify.backend.service;
 
 import com.moodify.backend.dto.MoodRequest;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Locale;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.time.Duration;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 
 @Service
 public class MoodService {
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Raw Gemini response -> normalized song candidates
+    private final GeminiResponseParser parser = new GeminiResponseParser();
 
-    // Default model used for generation (simplified)
-    private static final String DEFAULT_MODEL = "models/gemini-2.5-flash";
+    // Pooled client for quick existence checks against YouTube (see HttpClientConfig)
+    private final WebClient httpClient;
 
-    // Lightweight cache to remember which song queries returned YouTube results (avoids repeated lookups)
-    private final Map<String, Boolean> ytExistCache = new ConcurrentHashMap<>();
+    private static final Logger logger = LoggerFactory.getLogger(MoodService.class);
 
-    // A simple HTTP client (used for quick existence checks against public sites)
-    // Increase in-memory buffer size to allow reading YouTube result pages without DataBufferLimitException
-    private final WebClient httpClient = WebClient.builder()
-            .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(2 * 1024 * 1024))
-            .build();
+    // Single deadline shared by all YouTube checks of one request
+    @Value("${moodify.youtube.validation.deadline:PT5S}")
+    private Duration validationDeadline;
+
+    @Value("${moodify.youtube.validation.max-concurrency:10}")
+    private int validationMaxConcurrency;
+
+    // A live answer slower than this is replaced by picks from the precomputed pool, if there is one
+    @Value("${moodify.pools.serve-after:PT8S}")
+    private Duration poolServeAfter;
+
+    private final GeminiClient geminiClient;
+
+    private final RecommendationCache recommendationCache;
+
+    // Remembers which song queries returned YouTube results (avoids repeated lookups)
+    private final YouTubeExistenceCache ytExistCache;
+
+    // Known songs: candidates found here skip the YouTube check, near-misses are corrected
+    private final SongCatalog songCatalog;
+
+    // Songs whose video is being looked up in the background
+    private final Set<String> resolvingVideos = ConcurrentHashMap.newKeySet();
+
+    // Precomputed songs per mood/era/language, used when live generation is slow or refused
+    private final SongPoolStore songPools;
+
+    // Per-stage timers and outcome counters (exported via /actuator/prometheus)
+    private final Timer parseTimer;
+    private final Timer extractTimer;
+    private final Timer ytFound;
+    private final Timer ytNotFound;
+    private final Timer ytFailed;
+    private final Timer ytCancelled;
+    private final Counter candidatesSkipped;
+    private final Counter candidatesUnverified;
+    private final Counter fallbackSongs;
+    private final Counter degradedLastKnown;
+    private final Counter degradedPool;
+    private final Counter degradedFallback;
+    private final Counter slowPool;
+    private final Counter structuredAnswers;
+    private final Counter textAnswers;
+
+    public MoodService(GeminiClient geminiClient, RecommendationCache recommendationCache, YouTubeExistenceCache ytExistCache,
+                       SongCatalog songCatalog, SongPoolStore songPools, @Qualifier("youtubeWebClient") WebClient httpClient,
+                       MeterRegistry meterRegistry) {
+        this.httpClient = httpClient;
+        this.geminiClient = geminiClient;
+        this.recommendationCache = recommendationCache;
+        this.ytExistCache = ytExistCache;
+        this.songCatalog = songCatalog;
+        this.songPools = songPools;
+
+        this.parseTimer = Timer.builder("moodify.parse")
+                .description("Gemini response -> normalized candidates")
+                .register(meterRegistry);
+        this.extractTimer = Timer.builder("moodify.extract")
+                .description("Parsing, YouTube validation and formatting of one Gemini answer")
+                .register(meterRegistry);
+        this.ytFound = youtubeTimer(meterRegistry, "found");
+        this.ytNotFound = youtubeTimer(meterRegistry, "not_found");
+        this.ytFailed = youtubeTimer(meterRegistry, "error");
+        this.ytCancelled = youtubeTimer(meterRegistry, "cancelled");
+        this.candidatesSkipped = Counter.builder("moodify.candidates")
+                .tag("result", "skipped")
+                .description("Candidates dropped because YouTube had no results")
+                .register(meterRegistry);
+        this.candidatesUnverified = Counter.builder("moodify.candidates")
+                .tag("result", "unverified")
+                .description("Candidates accepted because the YouTube check failed or missed the deadline")
+                .register(meterRegistry);
+        this.fallbackSongs = Counter.builder("moodify.songs.fallback")
+                .description("Fallback songs used to fill a recommendation")
+                .register(meterRegistry);
+        this.degradedLastKnown = Counter.builder("moodify.degraded")
+                .tag("source", "last_known")
+                .register(meterRegistry);
+        this.degradedPool = Counter.builder("moodify.degraded")
+                .tag("source", "pool")
+                .register(meterRegistry);
+        this.degradedFallback = Counter.builder("moodify.degraded")
+                .tag("source", "fallback")
+                .register(meterRegistry);
+        this.slowPool = Counter.builder("moodify.pools.served")
+                .tag("reason", "slow")
+                .description("Requests answered from a precomputed pool because live generation was too slow")
+                .register(meterRegistry);
+        this.structuredAnswers = Counter.builder("moodify.gemini.answers")
+                .tag("format", "structured")
+                .description("Gemini song answers by format; text includes structured answers that could not be read")
+                .register(meterRegistry);
+        this.textAnswers = Counter.builder("moodify.gemini.answers")
+                .tag("format", "text")
+                .description("Gemini song answers by format; text includes structured answers that could not be read")
+                .register(meterRegistry);
+    }
 
-    private static final Logger logger = LoggerFactory.getLogger(MoodService.class);
+    private static Timer youtubeTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("moodify.youtube.check")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    public Mono<List<Song>> generateSongs(MoodRequest request) {
+        // Identical (normalized) requests share one cached or in-flight Gemini call
+        Mono<List<Song>> live = recommendationCache.get(request, () -> generateSongsUncached(request));
+        // Too slow: answer from the pool; the live call keeps running and fills the cache.
+        // Without a pool, re-subscribing joins the same in-flight call.
+        return live.timeout(poolServeAfter, Mono.defer(() -> songPools.pick(request, 5)
+                        .map(songs -> {
+                            slowPool.increment();
+                            logger.info("Live answer slower than {}, serving pooled songs", poolServeAfter);
+                            return Mono.just(finishDegradedSongs(songs));
+                        })
+                        .orElse(live)))
+                .onErrorResume(GeminiUnavailableException.class, e -> Mono.just(degradedSongs(request, e)));
+    }
 
-    @Value("${gemini.api.key}")
-    private String apiKey;
+    /**
+     * Streaming variant of {@link #generateSongs}: songs are emitted one by one as soon as their existence check passes, in completion order, so the first
+     * song arrives long before the whole answer is generated. Missing slots are filled with
+     * fallback songs at the end, and the final list is cached like a regular request.
+     */
+    public Flux<Song> streamSongs(MoodRequest request) {
+        return recommendationCache.getIfPresent(request)
+                .flatMapMany(Flux::fromIterable)
+                .switchIfEmpty(Flux.defer(() -> streamSongsUncached(request)))
+                // Refused before any text was generated, so nothing has been emitted yet
+                .onErrorResume(GeminiUnavailableException.class, e -> Flux.fromIterable(degradedSongs(request, e)));
+    }
 
-    private final WebClient webClient = WebClient.create(
-            "https://generativelanguage.googleapis.com");
+    /**
+     * Answer for a request Gemini was not asked about (breaker open or concurrency limit hit):
+     * the last answer generated for it or for the same mood/era/language, else picks from the
+     * precomputed pool, else the fallback songs. Degraded answers are not cached.
+     */
+    List<Song> degradedSongs(MoodRequest request, GeminiUnavailableException cause) {
+        return degradedSongs(request, cause.getMessage());
+    }
 
-    public List<String> generateSongs(MoodRequest request) {
+    /** Degraded answer for a request shed by admission control because the service is overloaded. */
+    public List<Song> shedSongs(MoodRequest request) {
+        return degradedSongs(request, "overloaded");
+    }
+
+    private List<Song> degradedSongs(MoodRequest request, String reason) {
+        List<Song> lastKnown = recommendationCache.lastKnown(request);
+        if (lastKnown != null) {
+            logger.info("Serving degraded answer (last known): {}", reason);
+            degradedLastKnown.increment();
+            return lastKnown;
+        }
+        List<String> pooled = songPools.pick(request, 5).orElse(null);
+        if (pooled != null) {
+            logger.info("Serving degraded answer (pool): {}", reason);
+            degradedPool.increment();
+            return finishDegradedSongs(pooled);
+        }
+        logger.info("Serving degraded answer (fallback songs): {}", reason);
+        degradedFallback.increment();
+        return finishDegradedSongs(List.of());
+    }
+
+    /**
+     * Validated songs ("Title - Artist", no links) for a mood/era/language combination, used to
+     * fill its precomputed pool. Candidates YouTube has no results for are dropped.
+     */
+    Mono<List<String>> generatePool(MoodRequest combination, int size) {
+        return callGeminiForSongs(buildStructuredPoolPrompt(combination, size), buildPoolPrompt(combination, size), size)
+                .map(response -> songCandidates(response).stream()
+                        .map(songCatalog::canonical)
+                        .distinct()
+                        .toList())
+                .flatMap(candidates -> checkAll(candidates)
+                        .map(accepted -> candidates.stream()
+                                .filter(candidate -> accepted.getOrDefault(candidate, false))
+                                .toList()));
+    }
+
+    private Mono<List<Song>> generateSongsUncached(MoodRequest request) {
+        return callGeminiForSongs(buildStructuredPrompt(request), buildPrompt(request), 5)
+                .flatMap(response -> {
+                    logger.debug("Gemini response: {}", response);
+                    return extractSongs(response);
+                });
+    }
 
-        String prompt = String.format("""
+    /**
+     * Raw Gemini response for a prompt, using the default model. Errors are wrapped with the
+     * message the API returns to clients; an empty answer is an error too.
+     */
+    Mono<String> callGemini(String prompt) {
+        return handleGeminiErrors(geminiClient.callGenerateSimple(prompt));
+    }
+
+    // Like callGemini, but for a song list: structured output where the endpoint supports it
+    private Mono<String> callGeminiForSongs(String structuredPrompt, String textPrompt, int count) {
+        return handleGeminiErrors(geminiClient.callGenerateSongs(structuredPrompt, textPrompt, count));
+    }
+
+    private Mono<String> handleGeminiErrors(Mono<String> call) {
+        String model = geminiClient.getModel();
+        return call
+                // A refused call is passed on as is so callers can degrade instead of failing
+                .onErrorMap(e -> !(e instanceof GeminiUnavailableException), e -> {
+                    logger.error("Error while calling selected model ({}): {}", model, e.getMessage());
+                    return new RuntimeException("Error contacting Gemini API (model=" + model + "): " + e.getMessage(), e);
+                })
+                .filter(response -> !response.isEmpty())
+                .switchIfEmpty(Mono.error(() -> {
+                    logger.warn("Empty response from Gemini API");
+                    return new RuntimeException("Empty response from Gemini API");
+                }));
+    }
+
+    private Flux<Song> streamSongsUncached(MoodRequest request) {
+        String model = geminiClient.getModel();
+        Set<String> candidates = ConcurrentHashMap.newKeySet();
+        List<String> accepted = new CopyOnWriteArrayList<>();
+        List<Song> emitted = new ArrayList<>();
+        // Set when the stream broke off after some songs; such a partial, padded answer is not cached
+        AtomicBoolean interrupted = new AtomicBoolean();
+
+        Flux<String> verified = splitLines(geminiClient.streamGenerateSimple(buildPrompt(request)))
+                .mapNotNull(this::toCandidate)
+                .filter(candidates::add)
+                // Each candidate gets the full deadline from the moment its line is complete
+                .flatMap(candidate -> checkCandidate(candidate, Mono.delay(validationDeadline))
+                                .filter(exists -> exists)
+                                .map(exists -> candidate),
+                        validationMaxConcurrency)
+                .take(5)
+                .doOnNext(accepted::add)
+                .onErrorResume(e -> {
+                    if (e instanceof GeminiUnavailableException) return Mono.error(e);
+                    logger.error("Error while streaming from selected model ({}): {}", model, e.getMessage());
+                    if (accepted.isEmpty()) {
+                        return Mono.error(new RuntimeException("Error contacting Gemini API (model=" + model + "): " + e.getMessage(), e));
+                    }
+                    interrupted.set(true);
+                    return Mono.empty();
+                });
+
+        // If not enough, append fallbacks once the model is done
+        Flux<String> fallbacks = Flux.defer(() -> {
+            List<String> filled = SongFormatter.fillWithFallbacks(accepted);
+            fallbackSongs.increment(filled.size() - accepted.size());
+            return Flux.fromIterable(filled).skip(accepted.size());
+        });
+
+        return verified.map(name -> toSong(name, true))
+                .concatWith(fallbacks.map(name -> toSong(name, false)))
+                .doOnNext(emitted::add)
+                .doOnComplete(() -> {
+                    if (!interrupted.get()) recommendationCache.put(request, List.copyOf(emitted));
+                });
+    }
+
+    private String buildPrompt(MoodRequest request) {
+        return String.format("""
                 Suggest 5 distinct %s %s songs in %s language.
                 Mood: %s.
                 IMPORTANT: Respond ONLY with five unique lines, each in this exact format:
@@ -59,304 +311,248 @@ public class MoodService {
                 request.getMood(),
                 request.getLanguage(),
                 request.getFeeling());
+    }
 
-        String model = DEFAULT_MODEL;
-        String response;
-        try {
-            response = callGenerateSimple(model, prompt);
-        } catch (Exception e) {
-            logger.error("Error while calling selected model ({}): {}", model, e.getMessage());
-            throw new RuntimeException("Error contacting Gemini API (model=" + model + "): " + e.getMessage(), e);
-        }
+    // The response schema fixes the answer format, so the structured prompts only describe the songs
+    private String buildStructuredPrompt(MoodRequest request) {
+        return String.format("""
+                Suggest 5 distinct %s %s songs in %s language.
+                Mood: %s.
+                If you cannot find songs exactly matching the language/era, return the closest matches.
+                """,
+                request.getEra(),
+                request.getMood(),
+                request.getLanguage(),
+                request.getFeeling());
+    }
 
-        if (response == null || response.isEmpty()) {
-            logger.warn("Empty response from Gemini API");
-            throw new RuntimeException("Empty response from Gemini API");
-        }
+    private String buildStructuredPoolPrompt(MoodRequest combination, int size) {
+        return String.format("""
+                Suggest %d distinct, well-known %s %s songs in %s language.
+                """,
+                size,
+                combination.getEra(),
+                combination.getMood(),
+                combination.getLanguage());
+    }
 
-        logger.debug("Gemini response: {}", response);
-        return extractSongs(response);
+    private String buildPoolPrompt(MoodRequest combination, int size) {
+        return String.format("""
+                Suggest %d distinct, well-known %s %s songs in %s language.
+                IMPORTANT: Respond ONLY with %d unique lines, each in this exact format:
+                Song - Artist
+                Do NOT include numbering, quotes, explanations, or any extra text.
+                """,
+                size,
+                combination.getEra(),
+                combination.getMood(),
+                combination.getLanguage(),
+                size);
     }
 
-    /**
-     * Return the models JSON from the Gemini models endpoint.
-     * This is used internally for model discovery and selection.
-     */
+    // Re-chunk streamed text into complete lines; the last partial line is flushed at the end
+    private static Flux<String> splitLines(Flux<String> chunks) {
+        return Flux.defer(() -> {
+            StringBuilder pending = new StringBuilder();
+            return chunks.concatMapIterable(chunk -> {
+                        pending.append(chunk);
+                        List<String> lines = new ArrayList<>();
+                        int start = 0;
+                        int nl;
+                        while ((nl = pending.indexOf("\n", start)) >= 0) {
+                            lines.add(pending.substring(start, nl));
+                            start = nl + 1;
+                        }
+                        pending.delete(0, start);
+                        return lines;
+                    })
+                    .concatWith(Mono.fromSupplier(pending::toString).filter(rest -> !rest.isBlank()));
+        });
+    }
 
+    private Mono<List<Song>> extractSongs(String response) {
 
-    private String callGenerateSimple(String model, String prompt) {
-        String[] versions = new String[]{"/v1beta", "/v1"};
-        String bodyContent = """
-                {
-                  "contents": [{ "parts": [{ "text": "%s" }] }]
-                }
-            """.formatted(prompt);
-
-        for (String version : versions) {
-            String pathContent = version + "/" + model + ":generateContent";
-            try {
-                logger.debug("Attempting POST {}", pathContent);
-                String resp = webClient.post()
-                        .uri(uriBuilder -> uriBuilder
-                                .path(pathContent)
-                                .queryParam("key", apiKey)
-                                .build())
-                        .header("Content-Type", "application/json")
-                        .bodyValue(bodyContent)
-                        .exchangeToMono(clientResponse -> clientResponse.bodyToMono(String.class)
-                                .flatMap(bodyStr -> {
-                                    if (clientResponse.statusCode().is2xxSuccessful()) return Mono.just(bodyStr);
-                                    return Mono.error(new RuntimeException("API error (" + pathContent + "): " + clientResponse.statusCode() + " - " + bodyStr));
-                                }))
-                        .block();
-
-                if (resp != null && !resp.isEmpty()) return resp;
-            } catch (Exception e) {
-                logger.warn("Attempt {} failed for model {}: {}", version, model, e.getMessage());
-            }
+        if (response == null || response.isEmpty()) {
+            return Mono.just(finishSongs(List.of()));
         }
 
-        throw new RuntimeException("All generation attempts failed for model " + model);
+        Timer.Sample sample = Timer.start();
+        List<String> candidates = parseTimer.record(() -> songCandidates(response).stream()
+                .map(songCatalog::canonical)
+                .distinct()
+                .toList());
+
+        // Quick existence check on YouTube to reduce hallucinatory suggestions
+        return validateCandidates(candidates)
+                .map(this::finishSongs)
+                .doOnSuccess(songs -> sample.stop(extractTimer));
     }
 
+    // Songs from a raw Gemini answer to a songs request, structured or not
+    private List<String> songCandidates(String response) {
+        List<String> structured = parser.structuredCandidates(response);
+        if (structured != null) {
+            structuredAnswers.increment();
+            return structured;
+        }
+        textAnswers.increment();
+        return parser.candidates(generatedText(response));
+    }
 
+    // Generated song text from a raw Gemini response
+    String generatedText(String response) {
+        return parser.generatedText(response);
+    }
 
+    // Accepted songs of a live Gemini answer -> the five songs returned to clients (fallbacks appended,
+    // video IDs attached); accepted songs without a known video are looked up in the background
+    List<Song> finishSongs(Collection<String> accepted) {
+        return finishSongs(accepted, true);
+    }
 
+    // Pooled or fallback songs of a degraded answer: no background lookups, so shedding load or
+    // riding out a Gemini outage never adds YouTube traffic
+    private List<Song> finishDegradedSongs(Collection<String> songs) {
+        return finishSongs(songs, false);
+    }
 
+    private List<Song> finishSongs(Collection<String> accepted, boolean generated) {
+        List<Song> songs = SongFormatter.fillWithFallbacks(accepted).stream()
+                .map(name -> toSong(name, generated && accepted.contains(name)))
+                .toList();
+        fallbackSongs.increment(Math.max(0, songs.size() - accepted.size()));
+        return songs;
+    }
 
+    // The existence check cached the video it found for the song, if any
+    private Song toSong(String name, boolean resolveLater) {
+        String videoId = ytExistCache.videoId(name);
+        if (videoId == null && resolveLater) resolveVideoLater(name);
+        return new Song(name, videoId);
+    }
 
-    private static final List<String> FALLBACK_SONGS = List.of(
-            "Tum Hi Ho - Arijit Singh",
-            "Pehla Nasha - Udit Narayan",
-            "Kal Ho Naa Ho - Sonu Nigam",
-            "Channa Mereya - Arijit Singh",
-            "Tujh Mein Rab Dikhta Hai - Roop Kumar Rathod"
-    );
+    // One generated line -> normalized "Title - Artist" (catalog spelling if known), or null if it is not a usable song line
+    String toCandidate(String raw) {
+        String candidate = parser.toCandidate(raw);
+        return candidate == null ? null : songCatalog.canonical(candidate);
+    }
 
-    private List<String> extractSongs(String response) {
+    /**
+     * Check all candidates against YouTube at once and return the first five that pass,
+     * in their original order. All checks share one deadline; candidates still unresolved
+     * when it fires are accepted unverified (as a failed check always was). Once five
+     * candidates are accepted the remaining in-flight checks are cancelled.
+     */
+    private Mono<List<String>> validateCandidates(List<String> candidates) {
+        if (candidates.isEmpty()) return Mono.just(List.of());
+
+        Mono<Long> deadline = Mono.delay(validationDeadline).cache();
+
+        return Flux.fromIterable(candidates)
+                // Rejected candidates complete empty, so only accepted ones are emitted (in order)
+                .flatMapSequential(candidate -> checkCandidate(candidate, deadline)
+                                .filter(exists -> exists)
+                                .map(exists -> candidate),
+                        Math.max(1, Math.min(candidates.size(), validationMaxConcurrency)))
+                .take(5)
+                .collectList();
+    }
 
-        if (response == null || response.isEmpty()) {
-            return FALLBACK_SONGS.stream().map(this::withYouTubeLink).toList();
-        }
+    /**
+     * Check a set of candidates in one pass (e.g. the union of several batch items) under a
+     * single deadline, without stopping early. Returns candidate -> accepted.
+     */
+    Mono<Map<String, Boolean>> checkAll(Collection<String> candidates) {
+        if (candidates.isEmpty()) return Mono.just(Map.of());
 
-        // Try to extract generated textual content reliably from JSON responses (Gemini / Text-Bison)
-        String generated = extractGeneratedText(response);
-
-        // If the generated string itself contains embedded JSON fragments (e.g., '"text":"...') try to sanitize
-        generated = sanitizeGeneratedTextIfNeeded(generated);
-
-        // Split by newlines and normalize each candidate, dedupe while preserving order
-        java.util.LinkedHashSet<String> seen = new java.util.LinkedHashSet<>();
-
-        for (String raw : generated.split("\\r?\\n")) {
-            String s = raw.trim();
-            if (s.isEmpty()) continue;
-            // remove leading numbering like '1.' or '1)'
-            s = s.replaceAll("^[0-9]+[.)]?\\s*", "");
-
-            String normalized = normalizeSongLine(s);
-            if (normalized != null && !normalized.isEmpty()) {
-                // Quick existence check on YouTube to reduce hallucinatory suggestions
-                try {
-                    boolean exists = ytExistCache.computeIfAbsent(normalized.toLowerCase(Locale.ROOT), k -> youtubeHasResult(normalized));
-                    if (exists) {
-                        seen.add(normalized);
-                    } else {
-                        logger.info("Skipping candidate (no YouTube results): {}", normalized);
-                    }
-                } catch (Exception e) {
-                    logger.warn("YouTube existence check failed for '{}': {}. Accepting it as fallback.", normalized, e.getMessage());
-                    seen.add(normalized);
-                }
-                if (seen.size() >= 5) break;
-            }
-        }
+        Mono<Long> deadline = Mono.delay(validationDeadline).cache();
 
-        // If not enough, append fallbacks (but avoid duplicates)
-        for (String f : FALLBACK_SONGS) {
-            if (seen.size() >= 5) break;
-            if (!seen.contains(f)) seen.add(f);
-        }
+        return Flux.fromIterable(candidates)
+                .flatMap(candidate -> checkCandidate(candidate, deadline).map(exists -> Map.entry(candidate, exists)),
+                        Math.max(1, validationMaxConcurrency))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
 
-        return seen.stream().limit(5).map(this::withYouTubeLink).toList();
-    }
-
-    private String extractGeneratedText(String response) {
-        try {
-            JsonNode root = objectMapper.readTree(response);
-
-            // 1) If 'candidates' array is present, extract text pieces
-            if (root.has("candidates")) {
-                StringBuilder sb = new StringBuilder();
-                for (JsonNode cand : root.withArray("candidates")) {
-                    if (cand.has("content")) {
-                        for (JsonNode part : cand.withArray("content")) {
-                            if (part.has("text")) {
-                                sb.append(part.get("text").asText()).append("\n");
-                            } else {
-                                // sometimes content entries are objects with nested 'text'
-                                String maybe = part.toString();
-                                sb.append(maybe).append("\n");
-                            }
-                        }
-                    } else if (cand.has("output")) {
-                        sb.append(cand.get("output").asText()).append("\n");
+    // Existence check bounded by the given deadline; unresolved or failed checks (YouTube errors included) accept the candidate
+    private Mono<Boolean> checkCandidate(String candidate, Mono<?> deadline) {
+        return youtubeExists(candidate)
+                .timeout(deadline)
+                .onErrorResume(e -> {
+                    candidatesUnverified.increment();
+                    logger.warn("YouTube existence check failed for '{}': {}. Accepting it as fallback.", candidate, e.toString());
+                    return Mono.just(true);
+                })
+                .doOnNext(exists -> {
+                    if (!exists) {
+                        candidatesSkipped.increment();
+                        logger.info("Skipping candidate (no YouTube results): {}", candidate);
                     }
-                }
-                String out = sb.toString().trim();
-                if (!out.isEmpty()) return out;
-            }
-
-            // 2) If 'outputs' array is present (different response shape)
-            if (root.has("outputs")) {
-                StringBuilder sb = new StringBuilder();
-                for (JsonNode out : root.withArray("outputs")) {
-                    if (out.has("content")) {
-                        for (JsonNode part : out.withArray("content")) {
-                            if (part.has("text")) sb.append(part.get("text").asText()).append("\n");
-                            else sb.append(part.toString()).append("\n");
-                        }
-                    } else if (out.has("text")) {
-                        sb.append(out.get("text").asText()).append("\n");
-                    }
-                }
-                String o = sb.toString().trim();
-                if (!o.isEmpty()) return o;
-            }
-
-            // 3) As a fallback, pull all 'text' fields anywhere in the JSON
-            java.util.List<String> texts = root.findValuesAsText("text");
-            if (!texts.isEmpty()) {
-                return String.join("\n", texts);
-            }
-
-        } catch (Exception e) {
-            logger.warn("Failed to parse generated JSON, falling back to raw response: {}", e.getMessage());
-        }
+                });
+    }
 
-        // fallback: return raw string
-        return response;
-    }
-
-    private String withYouTubeLink(String song) {
-        try {
-            // Use URL encoding for queries
-            String query = java.net.URLEncoder.encode(song, java.nio.charset.StandardCharsets.UTF_8.toString());
-            // YouTube: filter for videos (sp param helps prioritize video results)
-            String youTube = "https://www.youtube.com/results?search_query=" + query + "&sp=EgIQAQ%3D%3D";
-            // Spotify: open search in Spotify Web
-            String spotify = "https://open.spotify.com/search/" + query;
-            // Format: title | youtubeLink | spotifyLink
-            return song + " | " + youTube + " | " + spotify;
-        } catch (Exception e) {
-            logger.warn("Failed to encode song query for links: {}", e.getMessage());
-            String query = song.replace(" ", "+");
-            return song + " | https://www.youtube.com/results?search_query=" + query + " | https://open.spotify.com/search/" + query;
-        }
+    private Mono<Boolean> youtubeExists(String normalized) {
+        if (songCatalog.contains(normalized)) return Mono.just(true);
+        return youtubeMatch(normalized).map(YouTubeMatch::exists);
     }
 
-    private String normalizeSongLine(String s) {
-        // We expect a format like "Title - Artist" (dash used as separator). Try to be forgiving.
-        if (s.contains(" - ")) {
-            String[] parts = s.split(" - ", 2);
-            String title = parts[0].trim();
-            String artist = parts[1].trim();
-            // If artist has extra commas listing many names, keep the first 1-2 names
-            if (artist.contains(",")) {
-                String[] artParts = artist.split(",");
-                artist = artParts[0].trim();
-            }
-            return title + " - " + artist;
-        }
-        // fallback: if there's a dash without spaces
-        if (s.contains("-")) {
-            String[] parts = s.split("-", 2);
-            String title = parts[0].trim();
-            String artist = parts[1].trim();
-            if (artist.contains(",")) {
-                artist = artist.split(",")[0].trim();
-            }
-            return title + " - " + artist;
-        }
-        // Not in a parsable format - try to heuristically split last word(s) as artist (risky)
-        String[] words = s.split(" ");
-        if (words.length >= 2) {
-            String artist = words[words.length - 1];
-            String title = String.join(" ", java.util.Arrays.copyOf(words, words.length - 1));
-            return title + " - " + artist;
-        }
-        return null;
+    // Only answers from a completed search are cached and shared; a failed search errors and is retried next time
+    private Mono<YouTubeMatch> youtubeMatch(String normalized) {
+        YouTubeMatch cached = ytExistCache.getIfPresent(normalized);
+        if (cached != null) return Mono.just(cached);
+        return ytExistCache.getShared(normalized)
+                .switchIfEmpty(Mono.defer(() -> youtubeSearch(normalized)
+                        .doOnNext(match -> ytExistCache.put(normalized, match))));
     }
 
-    /**
-     * If the generated text appears to contain embedded JSON fragments such as
-     * '"text":"My Immortal - ...\nBecause of You - ..."', try to parse that JSON
-     * and extract the inner text fields (unescaped) so the UI shows clean song lines.
-     */
-    private String sanitizeGeneratedTextIfNeeded(String generated) {
-        if (generated == null || generated.isEmpty()) return generated;
-
-        // Quick heuristic: if it contains a "text" key or looks like JSON, attempt to parse
-        if (generated.contains("\"text\"") || generated.trim().startsWith("{") || generated.trim().startsWith("[")) {
-            try {
-                JsonNode root = objectMapper.readTree(generated);
-                // If it's a value node (a string with embedded JSON), try to find text fields anywhere
-                java.util.List<String> texts = root.findValuesAsText("text");
-                if (!texts.isEmpty()) {
-                    return String.join("\n", texts);
-                }
-            } catch (Exception e) {
-                // If parsing the whole string fails, try to regex-extract an inner "text":"..." value
-                try {
-                    java.util.regex.Pattern p = java.util.regex.Pattern.compile("\\\"text\\\"\s*:\s*\\\"([\\s\\S]*?)\\\"");
-                    java.util.regex.Matcher m = p.matcher(generated);
-                    if (m.find()) {
-                        String inner = m.group(1);
-                        // Unescape JSON-style escape sequences by letting ObjectMapper read it as a JSON string
-                        String unescaped = objectMapper.readValue("\"" + inner.replaceAll("\\\\\"", "\\\\\\\"") + "\"", String.class);
-                        return unescaped;
-                    }
-                } catch (Exception e2) {
-                    logger.warn("Failed to sanitize generated JSON fragment: {}", e2.getMessage());
-                }
-            }
-        }
-        // If nothing else, strip obvious JSON-like noise (e.g., leading '"text":')
-        String cleaned = generated.replaceAll("\\\"text\\\"\s*:\s*\\\"", "").replaceAll("\\\"\\s*,?", "").trim();
-        return cleaned;
+    // Generated songs returned without a known video (catalog songs skip the check) are looked up
+    // once off the request path, so later answers link straight to the video
+    private void resolveVideoLater(String normalized) {
+        if (!resolvingVideos.add(normalized)) return;
+        youtubeMatch(normalized)
+                .doFinally(signal -> resolvingVideos.remove(normalized))
+                .subscribe(null, e -> logger.debug("Video lookup for '{}' failed, will retry: {}", normalized, e.toString()));
     }
 
     /**
-     * Quick heuristic to check whether a YouTube search for the given song returns any videos.
-     * Uses a simple HTTP GET to the public results page and searches the HTML/initial data
-     * for indications of video results. Results are cached by the caller.
+     * Quick heuristic to check whether a YouTube search for the given song returns any videos,
+     * and which video is listed first. Streams the public results page and scans each chunk as
+     * it arrives for video-result markers; reading stops and the connection is closed once the
+     * first video ID is read, so only a few kilobytes are held at a time. Results are cached by
+     * the caller; the caller also applies the deadline, and cancelling the returned Mono aborts
+     * the request. HTTP and network failures (e.g. 429 or 5xx) are passed on as errors, never
+     * turned into a "not found" answer, so an outage cannot be cached as a negative.
      */
-    private boolean youtubeHasResult(String query) {
-        try {
-            String encoded = URLEncoder.encode(query, StandardCharsets.UTF_8.toString());
-            String url = "https://www.youtube.com/results?search_query=" + encoded + "&sp=EgIQAQ%3D%3D";
-            String body = httpClient.get()
-                    .uri(url)
-                    .header("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/115.0")
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block(Duration.ofSeconds(5));
-
-            if (body == null || body.isEmpty()) return false;
-            String lower = body.toLowerCase(Locale.ROOT);
-            // Look for typical markers in the YouTube initial HTML/JSON: presence of video links or videoRenderer
-            if (lower.contains("/watch?v=") || lower.contains("videorenderer") || (lower.contains("ytinitialdata") && lower.contains("video"))) {
-                return true;
-            }
-            return false;
-        } catch (Exception e) {
-            // If response exceeded buffer limit but returned 200, assume YouTube likely has results (avoid false negatives)
-            if (e instanceof DataBufferLimitException || (e.getMessage() != null && e.getMessage().contains("Exceeded limit on max bytes to buffer"))) {
-                logger.info("youtubeHasResult(): response exceeded buffer limit, treating as likely present for '{}'", query);
-                return true;
-            }
-            logger.warn("youtubeHasResult() failed for '{}': {}", query, e.getMessage());
-            return false;
-        }
+    private Mono<YouTubeMatch> youtubeSearch(String query) {
+        String encoded = URLEncoder.encode(query, StandardCharsets.UTF_8);
+        String url = "/results?search_query=" + encoded + "&sp=EgIQAQ%3D%3D";
+        YouTubeResultScanner scanner = new YouTubeResultScanner();
+        Timer.Sample sample = Timer.start();
+        return httpClient.get()
+                .uri(url)
+                .header("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/115.0")
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .map(buffer -> {
+                    try {
+                        return scanner.feed(buffer);
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                })
+                // next() cancels the body stream once the scanner has what it needs
+                .filter(done -> done)
+                .next()
+                .map(done -> scanner.result())
+                .switchIfEmpty(Mono.fromSupplier(scanner::result))
+                .doOnNext(match -> {
+                    sample.stop(match.exists() ? ytFound : ytNotFound);
+                    logger.debug("youtubeSearch('{}') = {} after {} bytes", query, match, scanner.bytesScanned());
+                })
+                // Cancelled by the caller's deadline, or because enough candidates were accepted
+                .doOnCancel(() -> sample.stop(ytCancelled))
+                .doOnError(e -> {
+                    sample.stop(ytFailed);
+                    logger.debug("youtubeSearch() failed for '{}': {}", query, e.getMessage());
+                });
     }
 }
@@ -0,0 +1,26 @@
+package com.moodify.backend.service;
+
+import java.time.Duration;
+
+/**
+ * The client is over its rate limit (see {@link ClientRateLimiter}); answered with 429 and a
+ * Retry-After header.
+ */
+public class RateLimitedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public RateLimitedException(Duration retryAfter) {
+        super("Too many requests, retry in a few seconds");
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /** Retry-After value for a wait: whole seconds, rounded up, at least 1. */
+    public static long retryAfterSeconds(Duration wait) {
+        return Math.max(1, (wait.toMillis() + 999) / 1000);
+    }
+}
@@ -0,0 +1,210 @@
+package com.moodify.backend.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.moodify.backend.dto.MoodRequest;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, TTL-based cache of generated song lists keyed on a normalized {@link MoodRequest}.
+ * Concurrent requests for the same key share one in-flight computation instead of each
+ * calling Gemini. Failed computations are never cached. The last good answer per request
+ * (and per mood/era/language) is also kept past the TTL, to serve when Gemini is unavailable.
+ * <p>
+ * When the {@link SharedCacheTier} is enabled this is its near cache: a local miss first asks
+ * the shared tier, and songs generated here are written there for the other instances. An
+ * entry that came from the shared tier expires locally when it expires there.
+ */
+@Component
+public class RecommendationCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecommendationCache.class);
+
+    // Songs plus how long this copy lives: the TTL, or what is left of it for shared-tier entries
+    private record Entry(List<Song> songs, long ttlNanos) {}
+
+    private final AsyncCache<RecommendationKey, Entry> cache;
+
+    // Last successful answer per key, without expiry; only read when Gemini cannot be called
+    private final Cache<RecommendationKey, List<Song>> lastKnown;
+
+    // Map-view operations bypass Caffeine's hit/miss counters, so track them here.
+    // "coalesced" counts callers that joined a computation started by another request.
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    private final long maxBytes;
+    private final Duration ttl;
+    private final SharedCacheTier sharedTier;
+
+    public RecommendationCache(
+            @Value("${moodify.cache.recommendations.max-bytes:8388608}") long maxBytes,
+            @Value("${moodify.cache.recommendations.ttl:PT10M}") Duration ttl,
+            @Value("${moodify.cache.recommendations.last-known-size:2000}") long lastKnownSize,
+            SharedCacheTier sharedTier,
+            MeterRegistry meterRegistry) {
+        this.maxBytes = maxBytes;
+        this.ttl = ttl;
+        this.sharedTier = sharedTier;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((RecommendationKey key, Entry entry) -> weigh(key, entry.songs()))
+                .expireAfter(new Expiry<RecommendationKey, Entry>() {
+                    @Override
+                    public long expireAfterCreate(RecommendationKey key, Entry entry, long currentTime) {
+                        return entry.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(RecommendationKey key, Entry entry, long currentTime, long currentDuration) {
+                        return entry.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(RecommendationKey key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+        this.lastKnown = Caffeine.newBuilder()
+                .maximumSize(lastKnownSize)
+                .build();
+        registerMetrics(meterRegistry);
+        logger.info("Recommendation cache enabled: maxBytes={}, ttl={}", maxBytes, ttl);
+    }
+
+    /**
+     * Return the cached songs for the request, else the shared tier's, else subscribe to
+     * {@code loader}. If the same key is already being loaded, share that result instead. The load is not tied to the first
+     * subscriber, so a cancelled caller does not fail the others waiting on it.
+     */
+    public Mono<List<Song>> get(MoodRequest request, Supplier<Mono<List<Song>>> loader) {
+        return Mono.defer(() -> {
+            RecommendationKey key = RecommendationKey.of(request);
+
+            CompletableFuture<Entry> mine = new CompletableFuture<>();
+            CompletableFuture<Entry> existing = cache.asMap().putIfAbsent(key, mine);
+
+            if (existing != null) {
+                if (existing.isDone()) hits.increment();
+                else coalesced.increment();
+                return Mono.fromFuture(existing, true).map(Entry::songs);
+            }
+
+            misses.increment();
+
+            Mono<Entry> generated = Mono.defer(loader).map(songs -> {
+                sharedTier.putSongs(key, songs, ttl);
+                return new Entry(songs, ttl.toNanos());
+            });
+            // Waiters see the same failure; Caffeine drops the failed future so the next call retries
+            fromSharedTier(key).switchIfEmpty(generated).subscribe(entry -> {
+                        remember(key, entry.songs());
+                        mine.complete(entry);
+                    }, mine::completeExceptionally,
+                    () -> mine.completeExceptionally(new IllegalStateException("No songs generated")));
+            return Mono.fromFuture(mine, true).map(Entry::songs);
+        });
+    }
+
+    /** Completed entry for the request, from this cache or the shared tier, or empty; never starts a load. */
+    public Mono<List<Song>> getIfPresent(MoodRequest request) {
+        return Mono.defer(() -> {
+            RecommendationKey key = RecommendationKey.of(request);
+            CompletableFuture<Entry> existing = cache.getIfPresent(key);
+            if (existing != null && existing.isDone() && !existing.isCompletedExceptionally()) {
+                hits.increment();
+                return Mono.fromFuture(existing).map(Entry::songs);
+            }
+            misses.increment();
+            return fromSharedTier(key).map(entry -> {
+                remember(key, entry.songs());
+                cache.asMap().putIfAbsent(key, CompletableFuture.completedFuture(entry));
+                return entry.songs();
+            });
+        });
+    }
+
+    /** Store songs produced outside {@link #get} (e.g. by a streamed request) unless already present. */
+    public void put(MoodRequest request, List<Song> songs) {
+        RecommendationKey key = RecommendationKey.of(request);
+        remember(key, songs);
+        if (cache.asMap().putIfAbsent(key, CompletableFuture.completedFuture(new Entry(songs, ttl.toNanos()))) == null) {
+            sharedTier.putSongs(key, songs, ttl);
+        }
+    }
+
+    private Mono<Entry> fromSharedTier(RecommendationKey key) {
+        return sharedTier.getSongs(key).map(hit -> new Entry(hit.value(), Math.min(hit.remaining().toNanos(), ttl.toNanos())));
+    }
+
+    /**
+     * Most recent answer for the request even if it has expired, else the most recent one for
+     * the same mood, era and language; null if neither was ever generated.
+     */
+    public List<Song> lastKnown(MoodRequest request) {
+        RecommendationKey key = RecommendationKey.of(request);
+        List<Song> songs = lastKnown.getIfPresent(key);
+        return songs != null ? songs : lastKnown.getIfPresent(key.withoutFeeling());
+    }
+
+    private void remember(RecommendationKey key, List<Song> songs) {
+        lastKnown.put(key, songs);
+        lastKnown.put(key.withoutFeeling(), songs);
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats s = cache.synchronous().stats();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("size", cache.synchronous().estimatedSize());
+        out.put("maxBytes", maxBytes);
+        out.put("weightBytes", cache.synchronous().policy().eviction()
+                .map(e -> e.weightedSize().orElse(0L)).orElse(0L));
+        long h = hits.sum() + coalesced.sum();
+        long m = misses.sum();
+        out.put("hits", hits.sum());
+        out.put("misses", m);
+        out.put("hitRate", h + m == 0 ? 0.0 : (double) h / (h + m));
+        out.put("evictions", s.evictionCount());
+        out.put("coalesced", coalesced.sum());
+        out.put("lastKnownSize", lastKnown.estimatedSize());
+        out.put("shared", sharedTier.stats());
+        return out;
+    }
+
+    // Same meter names as Micrometer's Caffeine binder, fed from the counters above
+    private void registerMetrics(MeterRegistry registry) {
+        String name = "recommendations";
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum).tags("cache", name, "result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum).tags("cache", name, "result", "miss").register(registry);
+        FunctionCounter.builder("cache.gets", coalesced, LongAdder::sum).tags("cache", name, "result", "coalesced").register(registry);
+        Gauge.builder("cache.size", cache, c -> c.synchronous().estimatedSize()).tag("cache", name).register(registry);
+        FunctionCounter.builder("cache.evictions", cache, c -> c.synchronous().stats().evictionCount()).tag("cache", name).register(registry);
+    }
+
+    private static int weigh(RecommendationKey key, List<Song> songs) {
+        int bytes = key.estimatedBytes() + 48;
+        for (Song song : songs) bytes += 56 + 2 * song.name().length() + (song.videoId() != null ? 64 : 0);
+        return bytes;
+    }
+}
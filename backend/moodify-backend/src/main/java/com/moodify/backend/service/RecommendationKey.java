@@ -0,0 +1,64 @@
+package com.moodify.backend.service;
+
+import com.moodify.backend.dto.MoodRequest;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Normalized identity of a recommendation request. Two requests that only differ in
+ * casing, spacing or punctuation of their fields map to the same key, so they can
+ * share a cached (or in-flight) Gemini answer.
+ */
+public record RecommendationKey(String mood, String era, String language, String feeling) {
+
+    public static RecommendationKey of(MoodRequest request) {
+        return new RecommendationKey(
+                canonical(request.getMood()),
+                canonical(request.getEra()),
+                canonical(request.getLanguage()),
+                canonical(request.getFeeling()));
+    }
+
+    /**
+     * Lowercase, fold unicode compatibility forms, turn punctuation into spaces and
+     * collapse runs of whitespace: "I'm  feeling GREAT!!" -> "i m feeling great".
+     * Combining marks (Devanagari and Bengali vowel signs, viramas, ...) are part of the
+     * word, so "दुख" and "देख" stay different.
+     */
+    static String canonical(String value) {
+        if (value == null) return "";
+        String folded = Normalizer.normalize(value, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(folded.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (isWordChar(c)) {
+                if (pendingSpace && sb.length() > 0) sb.append(' ');
+                sb.append(c);
+                pendingSpace = false;
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isWordChar(char c) {
+        if (Character.isLetterOrDigit(c)) return true;
+        int type = Character.getType(c);
+        return type == Character.NON_SPACING_MARK
+                || type == Character.COMBINING_SPACING_MARK
+                || type == Character.ENCLOSING_MARK;
+    }
+
+    /** Same mood, era and language with the free-text feeling dropped. */
+    RecommendationKey withoutFeeling() {
+        return new RecommendationKey(mood, era, language, "");
+    }
+
+    /** Rough retained size in bytes, used by the cache weigher. */
+    int estimatedBytes() {
+        return 64 + 2 * (mood.length() + era.length() + language.length() + feeling.length());
+    }
+}
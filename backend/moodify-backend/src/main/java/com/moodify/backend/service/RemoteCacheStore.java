@@ -0,0 +1,22 @@
+package com.moodify.backend.service;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Key/value store shared by all backend instances, behind the local caches. Values are opaque
+ * bytes with a time to live. Implementations do not need to handle timeouts or retries;
+ * {@link SharedCacheTier} bounds every call and fails open.
+ */
+public interface RemoteCacheStore extends AutoCloseable {
+
+    /** The stored value, or empty if the key is absent or expired. */
+    Mono<byte[]> get(String key);
+
+    /** Stores the value, replacing any existing one, for the given time to live. */
+    Mono<Void> set(String key, byte[] value, Duration ttl);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,287 @@
+package com.moodify.backend.service;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.DecoderException;
+import io.netty.util.ByteProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.Connection;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.tcp.TcpClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link RemoteCacheStore} on a server speaking the Redis protocol (RESP2), so Redis, Valkey,
+ * KeyDB or Dragonfly all work. Only GET and SET ... PX are used, over one pipelined
+ * connection: commands are written back to back and the replies, which the server sends in
+ * command order, complete them first in first out. The connection is opened on first use and
+ * again on the next call after it drops.
+ * <p>
+ * URL form: {@code redis://[[user]:password@]host[:port][/database]}.
+ */
+final class RespCacheStore implements RemoteCacheStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RespCacheStore.class);
+
+    private static final int DEFAULT_PORT = 6379;
+
+    // Null bulk string / array ("$-1", "*-1"); sinks cannot carry null
+    private static final Object NIL = new Object();
+
+    private record ErrorReply(String message) {}
+
+    private final String host;
+    private final int port;
+    private final String user;
+    private final String password;
+    private final int database;
+    private final Duration connectTimeout;
+
+    private final AtomicReference<Mono<Link>> link = new AtomicReference<>();
+
+    private RespCacheStore(String host, int port, String user, String password, int database, Duration connectTimeout) {
+        this.host = host;
+        this.port = port;
+        this.user = user;
+        this.password = password;
+        this.database = database;
+        this.connectTimeout = connectTimeout;
+    }
+
+    static RespCacheStore fromUrl(String url, Duration connectTimeout) {
+        URI uri;
+        try {
+            uri = new URI(url.trim());
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid shared cache URL: " + url, e);
+        }
+        if (!"redis".equalsIgnoreCase(uri.getScheme()) || uri.getHost() == null) {
+            throw new IllegalArgumentException("Shared cache URL must look like redis://host:port, got: " + url);
+        }
+        String user = null;
+        String password = null;
+        if (uri.getUserInfo() != null) {
+            int colon = uri.getUserInfo().indexOf(':');
+            if (colon < 0) {
+                password = uri.getUserInfo();
+            } else {
+                user = colon == 0 ? null : uri.getUserInfo().substring(0, colon);
+                password = uri.getUserInfo().substring(colon + 1);
+            }
+        }
+        int database = 0;
+        String path = uri.getPath();
+        if (path != null && path.length() > 1) {
+            try {
+                database = Integer.parseInt(path.substring(1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Shared cache URL database must be a number, got: " + url, e);
+            }
+        }
+        return new RespCacheStore(uri.getHost(), uri.getPort() < 0 ? DEFAULT_PORT : uri.getPort(),
+                user, password, database, connectTimeout);
+    }
+
+    @Override
+    public Mono<byte[]> get(String key) {
+        return command("GET", key).flatMap(reply -> {
+            if (reply == NIL) return Mono.empty();
+            if (reply instanceof byte[] value) return Mono.just(value);
+            return Mono.error(new IOException("Unexpected reply to GET: " + reply));
+        });
+    }
+
+    @Override
+    public Mono<Void> set(String key, byte[] value, Duration ttl) {
+        return command("SET", key, value, "PX", Math.max(1, ttl.toMillis())).then();
+    }
+
+    @Override
+    public void close() {
+        Mono<Link> current = link.getAndSet(null);
+        if (current != null) current.subscribe(l -> l.connection.dispose(), e -> {});
+    }
+
+    private Mono<Object> command(Object... args) {
+        byte[] encoded = encode(args);
+        return link().flatMap(l -> l.send(encoded));
+    }
+
+    private Mono<Link> link() {
+        while (true) {
+            Mono<Link> current = link.get();
+            if (current != null) return current;
+            Mono<Link> fresh = newLink();
+            if (link.compareAndSet(null, fresh)) return fresh;
+        }
+    }
+
+    // One connection attempt, shared by every command issued while it is in progress; a failed
+    // attempt or a dropped connection clears itself so the next command reconnects
+    private Mono<Link> newLink() {
+        AtomicReference<Mono<Link>> self = new AtomicReference<>();
+        Mono<Link> attempt = TcpClient.create(ConnectionProvider.newConnection())
+                .host(host)
+                .port(port)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .connect()
+                .map(connection -> {
+                    Link l = new Link(connection);
+                    connection.addHandlerLast("resp-decoder", new ReplyDecoder());
+                    // Reactor Netty reads on demand, so keep a subscriber on the replies
+                    connection.inbound().receiveObject().subscribe(l::received, e -> connection.dispose());
+                    connection.onDispose(() -> {
+                        l.closed();
+                        link.compareAndSet(self.get(), null);
+                    });
+                    logger.info("Connected to shared cache at {}:{}", host, port);
+                    return l;
+                })
+                .flatMap(this::handshake)
+                .doOnError(e -> link.compareAndSet(self.get(), null))
+                .cache();
+        self.set(attempt);
+        return attempt;
+    }
+
+    private Mono<Link> handshake(Link l) {
+        Mono<Link> ready = Mono.just(l);
+        if (password != null) {
+            Object[] auth = user != null ? new Object[]{"AUTH", user, password} : new Object[]{"AUTH", password};
+            ready = ready.flatMap(x -> x.send(encode(auth)).thenReturn(x));
+        }
+        if (database != 0) {
+            ready = ready.flatMap(x -> x.send(encode("SELECT", database)).thenReturn(x));
+        }
+        return ready.doOnError(e -> l.connection.dispose());
+    }
+
+    // One open connection and the replies it still owes, in command order
+    private static final class Link {
+        final Connection connection;
+        final Queue<Sinks.One<Object>> pending = new ConcurrentLinkedQueue<>();
+
+        Link(Connection connection) {
+            this.connection = connection;
+        }
+
+        Mono<Object> send(byte[] command) {
+            Sinks.One<Object> reply = Sinks.one();
+            // Enqueue and write under one lock so queue order is wire order
+            synchronized (this) {
+                pending.add(reply);
+                connection.channel().writeAndFlush(Unpooled.wrappedBuffer(command)).addListener(f -> {
+                    if (!f.isSuccess()) connection.dispose();
+                });
+            }
+            return reply.asMono().flatMap(r -> r instanceof ErrorReply e
+                    ? Mono.error(new IOException("Shared cache error: " + e.message()))
+                    : Mono.just(r));
+        }
+
+        void received(Object reply) {
+            Sinks.One<Object> sink = pending.poll();
+            if (sink != null) sink.tryEmitValue(reply);
+        }
+
+        void closed() {
+            Sinks.One<Object> sink;
+            while ((sink = pending.poll()) != null) sink.tryEmitError(new IOException("Shared cache connection closed"));
+        }
+    }
+
+    static final class ReplyDecoder extends ByteToMessageDecoder {
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+            while (in.isReadable()) {
+                in.markReaderIndex();
+                Object reply = parse(in);
+                if (reply == null) {
+                    in.resetReaderIndex();
+                    return;
+                }
+                out.add(reply);
+            }
+        }
+    }
+
+    /** One complete reply, or null (reader index unspecified) if more bytes are needed. */
+    static Object parse(ByteBuf in) {
+        if (!in.isReadable()) return null;
+        byte type = in.readByte();
+        String line = readLine(in);
+        if (line == null) return null;
+        switch (type) {
+            case '+':
+                return line;
+            case '-':
+                return new ErrorReply(line);
+            case ':':
+                return Long.parseLong(line);
+            case '$': {
+                int length = Integer.parseInt(line);
+                if (length < 0) return NIL;
+                if (in.readableBytes() < length + 2) return null;
+                byte[] value = new byte[length];
+                in.readBytes(value);
+                in.skipBytes(2);
+                return value;
+            }
+            case '*': {
+                int count = Integer.parseInt(line);
+                if (count < 0) return NIL;
+                List<Object> items = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    Object item = parse(in);
+                    if (item == null) return null;
+                    items.add(item);
+                }
+                return items;
+            }
+            default:
+                throw new DecoderException("Unexpected RESP reply type '" + (char) type + "'");
+        }
+    }
+
+    private static String readLine(ByteBuf in) {
+        int lf = in.forEachByte(ByteProcessor.FIND_LF);
+        if (lf < 0) return null;
+        String line = in.toString(in.readerIndex(), lf - 1 - in.readerIndex(), StandardCharsets.US_ASCII);
+        in.readerIndex(lf + 1);
+        return line;
+    }
+
+    /** A command as a RESP array of bulk strings. */
+    static byte[] encode(Object... args) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        writeAscii(out, "*" + args.length + "\r\n");
+        for (Object arg : args) {
+            byte[] bytes = arg instanceof byte[] b ? b : arg.toString().getBytes(StandardCharsets.UTF_8);
+            writeAscii(out, "$" + bytes.length + "\r\n");
+            out.writeBytes(bytes);
+            writeAscii(out, "\r\n");
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeAscii(ByteArrayOutputStream out, String s) {
+        out.writeBytes(s.getBytes(StandardCharsets.US_ASCII));
+    }
+}
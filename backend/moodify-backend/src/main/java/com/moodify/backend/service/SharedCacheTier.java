@@ -0,0 +1,247 @@
+package com.moodify.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Second cache level shared by all backend instances: generated song lists and YouTube
+ * search answers (found or not, and the video ID) go to a Redis-compatible store, so a
+ * recommendation or lookup computed by one instance is a cache hit on the others. The local
+ * caches stay in front as near caches.
+ * <p>
+ * Values are a small binary encoding that carries the entry's absolute expiry, so a near
+ * cache filled from here keeps the entry only for its remaining lifetime and every instance
+ * lets it go at the same moment. Entries are never changed in place, which makes expiry the
+ * only invalidation needed.
+ * <p>
+ * The tier fails open: every call is bounded by a short timeout, any error reads as a miss
+ * (writes are fire-and-forget), and after several failures in a row the store is bypassed
+ * for a cool-down so an outage costs nothing per request. Disabled when no URL is set.
+ */
+@Component
+public class SharedCacheTier {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedCacheTier.class);
+
+    // Bump when the value layout changes; entries of another version read as misses
+    private static final byte FORMAT_VERSION = 2;
+    private static final String KEY_PREFIX = "moodify:v1:";
+
+    /** A value read from the shared tier and how much longer it stays valid. */
+    public record Hit<T>(T value, Duration remaining) {}
+
+    private final RemoteCacheStore store;
+    private final Duration timeout;
+    private final int failureThreshold;
+    private final Duration coolDown;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long bypassUntil;
+    private volatile boolean bypassing;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter errors;
+    private final Counter bypassed;
+    private final Counter writes;
+
+    public SharedCacheTier(
+            @Value("${moodify.shared-cache.url:}") String url,
+            @Value("${moodify.shared-cache.timeout:PT0.1S}") Duration timeout,
+            @Value("${moodify.shared-cache.connect-timeout:PT1S}") Duration connectTimeout,
+            @Value("${moodify.shared-cache.failure-threshold:5}") int failureThreshold,
+            @Value("${moodify.shared-cache.cool-down:PT30S}") Duration coolDown,
+            MeterRegistry meterRegistry) {
+        this.store = url == null || url.isBlank() ? null : RespCacheStore.fromUrl(url, connectTimeout);
+        this.timeout = timeout;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.coolDown = coolDown;
+        this.hits = counter(meterRegistry, "hit");
+        this.misses = counter(meterRegistry, "miss");
+        this.errors = counter(meterRegistry, "error");
+        this.bypassed = counter(meterRegistry, "bypassed");
+        this.writes = counter(meterRegistry, "write");
+        if (store != null) {
+            logger.info("Shared cache tier enabled: timeout={}, failureThreshold={}, coolDown={}", timeout, failureThreshold, coolDown);
+        }
+    }
+
+    private static Counter counter(MeterRegistry registry, String result) {
+        return Counter.builder("moodify.shared.cache.requests").tag("result", result).register(registry);
+    }
+
+    public boolean enabled() {
+        return store != null;
+    }
+
+    public Mono<Hit<List<Song>>> getSongs(RecommendationKey key) {
+        return get(songsKey(key), SharedCacheTier::readSongs);
+    }
+
+    public void putSongs(RecommendationKey key, List<Song> songs, Duration ttl) {
+        put(songsKey(key), ttl, out -> {
+            out.writeShort(songs.size());
+            for (Song song : songs) {
+                out.writeUTF(song.name());
+                writeVideoId(out, song.videoId());
+            }
+        });
+    }
+
+    public Mono<Hit<YouTubeMatch>> getYouTube(String query) {
+        return get(KEY_PREFIX + "yt:" + query, in -> new YouTubeMatch(in.readBoolean(), readVideoId(in)));
+    }
+
+    public void putYouTube(String query, YouTubeMatch match, Duration ttl) {
+        put(KEY_PREFIX + "yt:" + query, ttl, out -> {
+            out.writeBoolean(match.exists());
+            writeVideoId(out, match.videoId());
+        });
+    }
+
+    private static String songsKey(RecommendationKey key) {
+        // Canonical fields only hold letters, digits, combining marks and single spaces, so '|' cannot clash
+        return KEY_PREFIX + "rec:" + key.mood() + '|' + key.era() + '|' + key.language() + '|' + key.feeling();
+    }
+
+    private static List<Song> readSongs(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        List<Song> songs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) songs.add(new Song(in.readUTF(), readVideoId(in)));
+        return List.copyOf(songs);
+    }
+
+    // Empty string for "no video ID"
+    private static void writeVideoId(DataOutputStream out, String videoId) throws IOException {
+        out.writeUTF(videoId == null ? "" : videoId);
+    }
+
+    private static String readVideoId(DataInputStream in) throws IOException {
+        String videoId = in.readUTF();
+        return videoId.isEmpty() ? null : videoId;
+    }
+
+    private interface Reader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private <T> Mono<Hit<T>> get(String key, Reader<T> reader) {
+        if (!available()) return Mono.empty();
+        return store.get(key)
+                .timeout(timeout)
+                .doOnSuccess(bytes -> succeeded())
+                .onErrorResume(e -> {
+                    failed("GET", e);
+                    return Mono.empty();
+                })
+                .flatMap(bytes -> Mono.justOrEmpty(decode(key, bytes, reader)))
+                .doOnNext(hit -> hits.increment())
+                .switchIfEmpty(Mono.fromRunnable(misses::increment));
+    }
+
+    private void put(String key, Duration ttl, Writer writer) {
+        if (!available() || ttl.isNegative() || ttl.isZero()) return;
+        byte[] value = encode(System.currentTimeMillis() + ttl.toMillis(), writer);
+        store.set(key, value, ttl)
+                .timeout(timeout)
+                .subscribe(null, e -> failed("SET", e), () -> {
+                    writes.increment();
+                    succeeded();
+                });
+    }
+
+    // [version][expires-at epoch millis][payload]
+    private static byte[] encode(long expiresAt, Writer writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(expiresAt);
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static <T> Hit<T> decode(String key, byte[] bytes, Reader<T> reader) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readByte() != FORMAT_VERSION) return null;
+            long remaining = in.readLong() - System.currentTimeMillis();
+            if (remaining <= 0) return null;
+            return new Hit<>(reader.read(in), Duration.ofMillis(remaining));
+        } catch (IOException e) {
+            logger.debug("Ignoring unreadable shared cache entry {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean available() {
+        if (store == null) return false;
+        if (bypassing && System.nanoTime() - bypassUntil < 0) {
+            bypassed.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private void succeeded() {
+        consecutiveFailures.set(0);
+        if (bypassing) {
+            bypassing = false;
+            logger.info("Shared cache reachable again");
+        }
+    }
+
+    // Past the threshold every failure (including the probe after a cool-down) restarts the cool-down
+    private void failed(String op, Throwable e) {
+        errors.increment();
+        logger.debug("Shared cache {} failed: {}", op, e.toString());
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            bypassUntil = System.nanoTime() + coolDown.toNanos();
+            if (!bypassing) {
+                bypassing = true;
+                logger.warn("Shared cache failed {} times in a row ({}), bypassing it for {}", failureThreshold, e.toString(), coolDown);
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled());
+        out.put("bypassing", bypassing);
+        out.put("hits", (long) hits.count());
+        out.put("misses", (long) misses.count());
+        out.put("errors", (long) errors.count());
+        out.put("bypassed", (long) bypassed.count());
+        out.put("writes", (long) writes.count());
+        return out;
+    }
+
+    @PreDestroy
+    void close() {
+        if (store != null) store.close();
+    }
+}
@@ -0,0 +1,30 @@
+package com.moodify.backend.service;
+
+import com.moodify.backend.dto.SongResult;
+
+/**
+ * One recommended song: "Title - Artist" (catalog spelling when known) and the YouTube video
+ * found for it by the existence check, or null if none is known. Clients get it as a
+ * {@link SongResult} and, for older clients, as a "title | youtubeLink | spotifyLink" string.
+ */
+public record Song(String name, String videoId) {
+
+    public String title() {
+        int sep = name.lastIndexOf(" - ");
+        return sep > 0 ? name.substring(0, sep).trim() : name;
+    }
+
+    public String artist() {
+        int sep = name.lastIndexOf(" - ");
+        return sep > 0 ? name.substring(sep + 3).trim() : "";
+    }
+
+    /** The older string form; links straight to the video when it is known. */
+    public String formatted() {
+        return SongFormatter.withYouTubeLink(name, videoId);
+    }
+
+    public SongResult toResult() {
+        return SongFormatter.toResult(this);
+    }
+}
@@ -0,0 +1,253 @@
+package com.moodify.backend.service;
+
+import com.moodify.backend.service.SongCatalogFile.Song;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local catalog of known songs, used to validate candidates without asking YouTube. Songs are
+ * indexed by their normalized "title + artist" for exact hits and by title trigrams for fuzzy
+ * ones, so a near-miss like "Kal Ho Na Ho - Sonu Nigam" is corrected to the catalog entry
+ * "Kal Ho Naa Ho - Sonu Nigam". A candidate matches only if both title and artist are close
+ * enough; anything else is left as is and checked on YouTube. Lookups take microseconds.
+ */
+@Component
+public class SongCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(SongCatalog.class);
+
+    private static final String SEED_RESOURCE = "catalog/songs.tsv";
+
+    // Title similarity weighs more than artist similarity in the combined score
+    private static final double TITLE_WEIGHT = 0.7;
+
+    // Titles sharing fewer trigrams than this (Dice coefficient) are not scored at all
+    private static final double MIN_TITLE_SIMILARITY = 0.5;
+
+    // Trigrams occurring in more songs than this carry no signal and are skipped
+    private static final int MAX_POSTINGS = 20_000;
+
+    /** Immutable lookup structures, swapped as a whole on load. */
+    private record Index(Song[] songs, long[][] artistGrams, int[] titleGrams,
+                         Map<String, Integer> exact, Map<Long, int[]> postings) {
+        static final Index EMPTY = new Index(new Song[0], new long[0][], new int[0], Map.of(), Map.of());
+    }
+
+    // Per-thread scratch space for counting shared trigrams
+    private static final class Scratch {
+        int[] counts = new int[0];
+        int[] touched = new int[64];
+    }
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final String catalogFile;
+    private final double minScore;
+
+    private final Counter exactHits;
+    private final Counter corrected;
+    private final Counter missed;
+
+    private volatile Index index = Index.EMPTY;
+
+    public SongCatalog(
+            @Value("${moodify.catalog.file:}") String catalogFile,
+            @Value("${moodify.catalog.min-score:0.8}") double minScore,
+            MeterRegistry meterRegistry) {
+        this.catalogFile = catalogFile;
+        this.minScore = minScore;
+        this.exactHits = catalogCounter(meterRegistry, "exact");
+        this.corrected = catalogCounter(meterRegistry, "corrected");
+        this.missed = catalogCounter(meterRegistry, "miss");
+        Gauge.builder("moodify.catalog.size", this, SongCatalog::size).register(meterRegistry);
+    }
+
+    private static Counter catalogCounter(MeterRegistry registry, String result) {
+        return Counter.builder("moodify.catalog.lookups").tag("result", result).register(registry);
+    }
+
+    @PostConstruct
+    void load() {
+        long start = System.nanoTime();
+        List<Song> songs;
+        try {
+            songs = readSongs();
+        } catch (IOException e) {
+            logger.warn("Failed to load song catalog: {}", e.getMessage());
+            return;
+        }
+        index = build(songs);
+        logger.info("Song catalog loaded: {} songs, {} trigrams in {} ms",
+                index.songs().length, index.postings().size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private List<Song> readSongs() throws IOException {
+        if (catalogFile != null && !catalogFile.isBlank()) {
+            Path file = Path.of(catalogFile);
+            if (Files.isReadable(file)) return SongCatalogFile.readPacked(file);
+            logger.warn("Song catalog {} not found, using the bundled seed catalog", file);
+        }
+        try (InputStream in = SongCatalog.class.getClassLoader().getResourceAsStream(SEED_RESOURCE)) {
+            if (in == null) return List.of();
+            return SongCatalogFile.readTsv(in);
+        }
+    }
+
+    int size() {
+        return index.songs().length;
+    }
+
+    /** True if the candidate ("Title - Artist") is exactly a catalog song, up to case and punctuation. */
+    public boolean contains(String candidate) {
+        int sep = candidate.indexOf(" - ");
+        if (sep < 0) return false;
+        return index.exact().containsKey(key(candidate.substring(0, sep), candidate.substring(sep + 3)));
+    }
+
+    /**
+     * The catalog's spelling of the candidate if it matches a song exactly or closely enough,
+     * else the candidate unchanged.
+     */
+    public String canonical(String candidate) {
+        int sep = candidate.indexOf(" - ");
+        if (sep < 0) {
+            missed.increment();
+            return candidate;
+        }
+        Index idx = index;
+        String title = RecommendationKey.canonical(candidate.substring(0, sep));
+        String artist = RecommendationKey.canonical(candidate.substring(sep + 3));
+
+        Integer exact = idx.exact().get(title + '\u0000' + artist);
+        if (exact != null) {
+            exactHits.increment();
+            return idx.songs()[exact].toString();
+        }
+
+        int best = bestFuzzyMatch(idx, title, artist);
+        if (best < 0) {
+            missed.increment();
+            return candidate;
+        }
+        corrected.increment();
+        String song = idx.songs()[best].toString();
+        logger.debug("Catalog corrected '{}' -> '{}'", candidate, song);
+        return song;
+    }
+
+    private int bestFuzzyMatch(Index idx, String title, String artist) {
+        long[] grams = trigrams(title);
+        if (grams.length == 0 || idx.songs().length == 0) return -1;
+
+        Scratch scratch = SCRATCH.get();
+        if (scratch.counts.length < idx.songs().length) scratch.counts = new int[idx.songs().length];
+        int[] counts = scratch.counts;
+        int touched = 0;
+
+        for (long gram : grams) {
+            int[] postings = idx.postings().get(gram);
+            if (postings == null || postings.length > MAX_POSTINGS) continue;
+            for (int id : postings) {
+                if (counts[id]++ == 0) {
+                    if (touched == scratch.touched.length) scratch.touched = Arrays.copyOf(scratch.touched, touched * 2);
+                    scratch.touched[touched++] = id;
+                }
+            }
+        }
+
+        long[] artistGrams = null;
+        int best = -1;
+        double bestScore = minScore;
+        for (int i = 0; i < touched; i++) {
+            int id = scratch.touched[i];
+            double titleScore = 2.0 * counts[id] / (grams.length + idx.titleGrams()[id]);
+            counts[id] = 0;
+            if (titleScore < MIN_TITLE_SIMILARITY) continue;
+            if (artistGrams == null) artistGrams = trigrams(artist);
+            double score = TITLE_WEIGHT * titleScore + (1 - TITLE_WEIGHT) * dice(artistGrams, idx.artistGrams()[id]);
+            if (score >= bestScore) {
+                bestScore = score;
+                best = id;
+            }
+        }
+        return best;
+    }
+
+    private static Index build(List<Song> songs) {
+        Song[] all = songs.toArray(new Song[0]);
+        long[][] artistGrams = new long[all.length][];
+        int[] titleGrams = new int[all.length];
+        Map<String, Integer> exact = new HashMap<>(all.length * 2);
+        Map<Long, List<Integer>> building = new HashMap<>();
+
+        for (int id = 0; id < all.length; id++) {
+            String title = RecommendationKey.canonical(all[id].title());
+            String artist = RecommendationKey.canonical(all[id].artist());
+            artistGrams[id] = trigrams(artist);
+            exact.putIfAbsent(title + '\u0000' + artist, id);
+            long[] grams = trigrams(title);
+            titleGrams[id] = grams.length;
+            for (long gram : grams) {
+                building.computeIfAbsent(gram, g -> new ArrayList<>()).add(id);
+            }
+        }
+
+        Map<Long, int[]> postings = new HashMap<>(building.size() * 2);
+        building.forEach((gram, ids) -> postings.put(gram, ids.stream().mapToInt(Integer::intValue).toArray()));
+        return new Index(all, artistGrams, titleGrams, exact, postings);
+    }
+
+    private static String key(String title, String artist) {
+        return RecommendationKey.canonical(title) + '\u0000' + RecommendationKey.canonical(artist);
+    }
+
+    // Distinct trigrams of a normalized string padded with spaces, each packed into a long (sorted)
+    static long[] trigrams(String normalized) {
+        if (normalized.isEmpty()) return new long[0];
+        String padded = " " + normalized + " ";
+        long[] grams = new long[padded.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) grams[distinct++] = grams[i];
+        }
+        return distinct == grams.length ? grams : Arrays.copyOf(grams, distinct);
+    }
+
+    // Dice coefficient of two sorted trigram sets
+    private static double dice(long[] a, long[] b) {
+        if (a.length == 0 || b.length == 0) return 0;
+        int shared = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return 2.0 * shared / (a.length + b.length);
+    }
+}
@@ -0,0 +1,102 @@
+package com.moodify.backend.service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * On-disk formats of the song catalog. The packed format is a header ("MSCT", version, count)
+ * followed by length-prefixed UTF-8 title and artist per song; it is memory-mapped for loading.
+ * The TSV format ({@code title<TAB>artist}, '#' comments) is what catalogs are edited in.
+ * Pack a TSV with the build-time tool (not part of the application jar):
+ * {@code mvn -Pcatalog process-test-classes -Dcatalog.in=songs.tsv -Dcatalog.out=songs.bin}
+ */
+final class SongCatalogFile {
+
+    // "MSCT" + format version; bump the version when the entry layout changes
+    private static final int MAGIC = 0x4D534354;
+    private static final int VERSION = 1;
+
+    record Song(String title, String artist) {
+        @Override
+        public String toString() {
+            return title + " - " + artist;
+        }
+    }
+
+    private SongCatalogFile() {
+    }
+
+    static List<Song> readPacked(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a song catalog (unknown format): " + file);
+            }
+            int count = buffer.getInt();
+            List<Song> songs = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                songs.add(new Song(readString(buffer), readString(buffer)));
+            }
+            return songs;
+        }
+    }
+
+    static void writePacked(List<Song> songs, Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "songs", ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(songs.size());
+            for (Song song : songs) {
+                writeString(out, song.title());
+                writeString(out, song.artist());
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static List<Song> readTsv(InputStream in) throws IOException {
+        List<Song> songs = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank() || line.startsWith("#")) continue;
+            int tab = line.indexOf('\t');
+            if (tab <= 0) continue;
+            String title = line.substring(0, tab).trim();
+            String artist = line.substring(tab + 1).trim();
+            if (!title.isEmpty() && !artist.isEmpty()) songs.add(new Song(title, artist));
+        }
+        return songs;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) throw new IOException("Catalog string too long: " + value.substring(0, 40) + "...");
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+}
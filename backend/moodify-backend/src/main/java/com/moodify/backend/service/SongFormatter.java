@@ -0,0 +1,88 @@
+package com.moodify.backend.service;
+
+import com.moodify.backend.dto.SongResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Final shape of a recommendation: five songs, padded with fallback songs when too few were
+ * accepted. Each song is returned structured ({@link SongResult}) and in the older
+ * {@code title | youtubeLink | spotifyLink} string form; the YouTube link points straight at
+ * the video when its ID is known, else at a search for the song.
+ */
+final class SongFormatter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SongFormatter.class);
+
+    static final List<String> FALLBACK_SONGS = List.of(
+            "Tum Hi Ho - Arijit Singh",
+            "Pehla Nasha - Udit Narayan",
+            "Kal Ho Naa Ho - Sonu Nigam",
+            "Channa Mereya - Arijit Singh",
+            "Tujh Mein Rab Dikhta Hai - Roop Kumar Rathod"
+    );
+
+    private SongFormatter() {
+    }
+
+    static List<String> fillWithFallbacks(Collection<String> accepted) {
+        LinkedHashSet<String> seen = new LinkedHashSet<>(accepted);
+
+        // If not enough, append fallbacks (but avoid duplicates)
+        for (String f : FALLBACK_SONGS) {
+            if (seen.size() >= 5) break;
+            if (!seen.contains(f)) seen.add(f);
+        }
+
+        return seen.stream().limit(5).toList();
+    }
+
+    static String withYouTubeLink(String song) {
+        return withYouTubeLink(song, null);
+    }
+
+    static String withYouTubeLink(String song, String videoId) {
+        String query = query(song);
+        String youTube = videoId != null ? watchUrl(videoId) : searchUrl(query);
+        // Format: title | youtubeLink | spotifyLink
+        return song + " | " + youTube + " | " + spotifyUrl(query);
+    }
+
+    static SongResult toResult(Song song) {
+        String query = query(song.name());
+        String videoId = song.videoId();
+        return new SongResult(song.title(), song.artist(), videoId,
+                videoId != null ? watchUrl(videoId) : null,
+                videoId != null ? "https://www.youtube.com/embed/" + videoId : null,
+                videoId == null ? searchUrl(query) : null,
+                spotifyUrl(query));
+    }
+
+    private static String watchUrl(String videoId) {
+        return "https://www.youtube.com/watch?v=" + videoId;
+    }
+
+    // YouTube: filter for videos (sp param helps prioritize video results)
+    private static String searchUrl(String query) {
+        return "https://www.youtube.com/results?search_query=" + query + "&sp=EgIQAQ%3D%3D";
+    }
+
+    // Spotify: open search in Spotify Web
+    private static String spotifyUrl(String query) {
+        return "https://open.spotify.com/search/" + query;
+    }
+
+    private static String query(String song) {
+        try {
+            // Use URL encoding for queries
+            return java.net.URLEncoder.encode(song, java.nio.charset.StandardCharsets.UTF_8.toString());
+        } catch (Exception e) {
+            logger.warn("Failed to encode song query for links: {}", e.getMessage());
+            return song.replace(" ", "+");
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.moodify.backend.service;
+
+import com.moodify.backend.dto.MoodRequest;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Precomputed, validated song pools per mood × era × language (the feeling is ignored). Filled
+ * by {@link SongPoolWarmer}; read when a live answer is slow or Gemini is unavailable. Picks
+ * from a pool are ranked against the request's feeling. Pools are written to a gzip snapshot
+ * and loaded again at startup.
+ */
+@Component
+public class SongPoolStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SongPoolStore.class);
+
+    // "MYSP" + format version; bump the version when the layout changes
+    private static final int SNAPSHOT_MAGIC = 0x4D595350;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    // Feeling words shorter than this (a, i, so, ...) are ignored when ranking
+    private static final int MIN_WORD_LENGTH = 3;
+
+    record Pool(List<String> songs, long refreshedAt) {
+    }
+
+    private final Map<RecommendationKey, Pool> pools = new ConcurrentHashMap<>();
+    private final Path snapshotFile;
+
+    public SongPoolStore(
+            @Value("${moodify.pools.snapshot-file:}") String snapshotFile,
+            MeterRegistry meterRegistry) {
+        this.snapshotFile = snapshotFile == null || snapshotFile.isBlank() ? null : Path.of(snapshotFile);
+        Gauge.builder("moodify.pools.size", pools, Map::size).register(meterRegistry);
+    }
+
+    private static RecommendationKey key(MoodRequest request) {
+        return RecommendationKey.of(request).withoutFeeling();
+    }
+
+    public void put(MoodRequest combination, List<String> songs) {
+        pools.put(key(combination), new Pool(List.copyOf(songs), System.currentTimeMillis()));
+    }
+
+    /** True if the combination has a pool refreshed within {@code maxAge}. */
+    public boolean isFresh(MoodRequest combination, Duration maxAge) {
+        Pool pool = pools.get(key(combination));
+        return pool != null && System.currentTimeMillis() - pool.refreshedAt() < maxAge.toMillis();
+    }
+
+    /**
+     * Up to {@code count} songs from the request's pool: songs whose title shares words with the
+     * feeling first, the rest in an order derived from the feeling, so different feelings get
+     * different picks and the same feeling always gets the same ones.
+     */
+    public Optional<List<String>> pick(MoodRequest request, int count) {
+        Pool pool = pools.get(key(request));
+        if (pool == null || pool.songs().isEmpty()) return Optional.empty();
+
+        String feeling = RecommendationKey.canonical(request.getFeeling());
+        Set<String> words = new HashSet<>();
+        for (String word : feeling.split(" ")) {
+            if (word.length() >= MIN_WORD_LENGTH) words.add(word);
+        }
+        int seed = feeling.hashCode();
+
+        List<String> songs = pool.songs();
+        List<Integer> order = new ArrayList<>(songs.size());
+        int[] score = new int[songs.size()];
+        int[] tiebreak = new int[songs.size()];
+        for (int i = 0; i < songs.size(); i++) {
+            order.add(i);
+            String title = RecommendationKey.canonical(songs.get(i));
+            for (String word : title.split(" ")) {
+                if (words.contains(word)) score[i]++;
+            }
+            tiebreak[i] = mix(seed, i);
+        }
+        order.sort(Comparator.<Integer>comparingInt(i -> -score[i]).thenComparingInt(i -> tiebreak[i]));
+        return Optional.of(order.stream().limit(count).map(songs::get).toList());
+    }
+
+    // Cheap integer hash (murmur3 finalizer) for a stable per-feeling shuffle
+    private static int mix(int seed, int i) {
+        int h = seed ^ (i * 0x9E3779B9);
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("pools", pools.size());
+        out.put("songs", pools.values().stream().mapToInt(p -> p.songs().size()).sum());
+        out.put("oldestRefreshedAt", pools.values().stream().mapToLong(Pool::refreshedAt).min().orElse(0));
+        return out;
+    }
+
+    @PostConstruct
+    void loadSnapshot() {
+        if (snapshotFile == null || !Files.isReadable(snapshotFile)) return;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(snapshotFile))))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                logger.warn("Ignoring song pool snapshot {} (unknown format)", snapshotFile);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                RecommendationKey key = new RecommendationKey(in.readUTF(), in.readUTF(), in.readUTF(), "");
+                long refreshedAt = in.readLong();
+                int size = in.readInt();
+                List<String> songs = new ArrayList<>(size);
+                for (int s = 0; s < size; s++) songs.add(in.readUTF());
+                pools.put(key, new Pool(List.copyOf(songs), refreshedAt));
+            }
+            logger.info("Loaded {} song pools from {}", count, snapshotFile);
+        } catch (IOException e) {
+            logger.warn("Failed to load song pool snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void writeSnapshot() {
+        if (snapshotFile == null) return;
+
+        Map<RecommendationKey, Pool> entries = Map.copyOf(pools);
+        if (entries.isEmpty()) return;
+        try {
+            Path dir = snapshotFile.toAbsolutePath().getParent();
+            if (dir != null) Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "song-pools", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(tmp))))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<RecommendationKey, Pool> e : entries.entrySet()) {
+                    out.writeUTF(e.getKey().mood());
+                    out.writeUTF(e.getKey().era());
+                    out.writeUTF(e.getKey().language());
+                    out.writeLong(e.getValue().refreshedAt());
+                    out.writeInt(e.getValue().songs().size());
+                    for (String song : e.getValue().songs()) out.writeUTF(song);
+                }
+            }
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Wrote {} song pools to {}", entries.size(), snapshotFile);
+        } catch (IOException e) {
+            logger.warn("Failed to write song pool snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.moodify.backend.service;
+
+import com.moodify.backend.dto.MoodRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fills and refreshes the {@link SongPoolStore}. The app only offers a few moods, eras and
+ * languages, so every combination gets a pool of validated songs ahead of time. A pass
+ * (shortly after startup, then periodically) regenerates the pools that are missing or older
+ * than the refresh interval, one Gemini call at a time and at most requests-per-minute calls,
+ * so live traffic keeps most of the quota. Pools loaded from the snapshot are not regenerated
+ * until they are stale.
+ */
+@Component
+public class SongPoolWarmer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SongPoolWarmer.class);
+
+    private final MoodService moodService;
+    private final SongPoolStore songPools;
+    private final boolean enabled;
+    private final List<MoodRequest> combinations;
+    private final int poolSize;
+    private final Duration refreshInterval;
+    private final Duration spacing;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Counter refreshed;
+    private final Counter failed;
+
+    public SongPoolWarmer(
+            MoodService moodService,
+            SongPoolStore songPools,
+            @Value("${moodify.pools.enabled:true}") boolean enabled,
+            @Value("${moodify.pools.moods:Happy,Sad,Romantic,Motivated,Chill,Thoughtful}") List<String> moods,
+            @Value("${moodify.pools.eras:New,2000s,90s,Old}") List<String> eras,
+            @Value("${moodify.pools.languages:Hindi,English,Bengali}") List<String> languages,
+            @Value("${moodify.pools.size:20}") int poolSize,
+            @Value("${moodify.pools.refresh-interval:PT24H}") Duration refreshInterval,
+            @Value("${moodify.pools.requests-per-minute:4}") int requestsPerMinute,
+            MeterRegistry meterRegistry) {
+        if (requestsPerMinute < 1) throw new IllegalArgumentException("moodify.pools.requests-per-minute must be >= 1");
+        this.moodService = moodService;
+        this.songPools = songPools;
+        this.enabled = enabled;
+        this.combinations = combinations(moods, eras, languages);
+        this.poolSize = poolSize;
+        this.refreshInterval = refreshInterval;
+        this.spacing = Duration.ofMinutes(1).dividedBy(requestsPerMinute);
+        this.refreshed = Counter.builder("moodify.pools.refreshes").tag("result", "ok").register(meterRegistry);
+        this.failed = Counter.builder("moodify.pools.refreshes").tag("result", "error").register(meterRegistry);
+    }
+
+    private static List<MoodRequest> combinations(List<String> moods, List<String> eras, List<String> languages) {
+        List<MoodRequest> out = new ArrayList<>(moods.size() * eras.size() * languages.size());
+        for (String mood : moods) {
+            for (String era : eras) {
+                for (String language : languages) {
+                    MoodRequest request = new MoodRequest();
+                    request.setMood(mood.trim());
+                    request.setEra(era.trim());
+                    request.setLanguage(language.trim());
+                    request.setFeeling("");
+                    out.add(request);
+                }
+            }
+        }
+        return out;
+    }
+
+    @Scheduled(initialDelayString = "${moodify.pools.initial-delay:PT10S}",
+            fixedDelayString = "${moodify.pools.check-interval:PT10M}")
+    void refreshStale() {
+        if (!enabled || !running.compareAndSet(false, true)) return;
+
+        List<MoodRequest> stale = combinations.stream()
+                .filter(combination -> !songPools.isFresh(combination, refreshInterval))
+                .toList();
+        if (stale.isEmpty()) {
+            running.set(false);
+            return;
+        }
+        logger.info("Refreshing {} of {} song pools (one every {})", stale.size(), combinations.size(), spacing);
+
+        Flux.fromIterable(stale)
+                .concatMap(combination -> refresh(combination).then(Mono.delay(spacing)))
+                .doFinally(signal -> {
+                    running.set(false);
+                    songPools.writeSnapshot();
+                })
+                .subscribe(ignored -> {
+                }, e -> logger.warn("Song pool refresh stopped: {}", e.getMessage()));
+    }
+
+    // Regenerate one pool; a refused call ends the pass since the next ones would be refused too
+    private Mono<Void> refresh(MoodRequest combination) {
+        return moodService.generatePool(combination, poolSize)
+                .doOnNext(songs -> {
+                    if (songs.isEmpty()) {
+                        failed.increment();
+                        logger.warn("No valid songs for pool {}/{}/{}", combination.getMood(), combination.getEra(), combination.getLanguage());
+                        return;
+                    }
+                    songPools.put(combination, songs);
+                    refreshed.increment();
+                    logger.debug("Pool {}/{}/{} refreshed with {} songs",
+                            combination.getMood(), combination.getEra(), combination.getLanguage(), songs.size());
+                })
+                .onErrorResume(e -> {
+                    if (e instanceof GeminiUnavailableException) return Mono.error(e);
+                    failed.increment();
+                    logger.warn("Failed to refresh pool {}/{}/{}: {}",
+                            combination.getMood(), combination.getEra(), combination.getLanguage(), e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+}
@@ -0,0 +1,206 @@
+package com.moodify.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Remembers which song queries returned YouTube results, and the video found. Size-bounded with Caffeine's
+ * frequency-aware (W-TinyLFU) eviction; positive and negative answers expire on separate
+ * TTLs so a transient "not found" does not stick. The contents are periodically written
+ * to a small gzip snapshot and loaded again at startup so a fresh instance starts warm.
+ * With the {@link SharedCacheTier} enabled, answers are also shared with the other instances;
+ * one taken from there expires locally when it expires in the shared tier.
+ */
+@Component
+public class YouTubeExistenceCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(YouTubeExistenceCache.class);
+
+    // "MYTC" + format version; bump the version when the entry layout changes (version 1 had no video IDs)
+    private static final int SNAPSHOT_MAGIC = 0x4D595443;
+    private static final int SNAPSHOT_VERSION = 2;
+
+    private final Cache<String, YouTubeMatch> cache;
+    private final Policy.VarExpiration<String, YouTubeMatch> expiration;
+    private final Duration positiveTtl;
+    private final Duration negativeTtl;
+    private final Path snapshotFile;
+    private final SharedCacheTier sharedTier;
+
+    public YouTubeExistenceCache(
+            @Value("${moodify.youtube.cache.max-size:50000}") long maxSize,
+            @Value("${moodify.youtube.cache.positive-ttl:P7D}") Duration positiveTtl,
+            @Value("${moodify.youtube.cache.negative-ttl:PT6H}") Duration negativeTtl,
+            @Value("${moodify.youtube.cache.snapshot-file:}") String snapshotFile,
+            SharedCacheTier sharedTier,
+            MeterRegistry meterRegistry) {
+        this.sharedTier = sharedTier;
+        this.positiveTtl = positiveTtl;
+        this.negativeTtl = negativeTtl;
+        this.snapshotFile = snapshotFile == null || snapshotFile.isBlank() ? null : Path.of(snapshotFile);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, YouTubeMatch>() {
+                    @Override
+                    public long expireAfterCreate(String key, YouTubeMatch match, long currentTime) {
+                        return ttlFor(match).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, YouTubeMatch match, long currentTime, long currentDuration) {
+                        return ttlFor(match).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, YouTubeMatch match, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        this.expiration = cache.policy().expireVariably().orElseThrow();
+        // cache.gets{result=hit|miss}, cache.size, cache.evictions, ... tagged cache=youtubeExistence
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "youtubeExistence");
+    }
+
+    public YouTubeMatch getIfPresent(String query) {
+        return cache.getIfPresent(key(query));
+    }
+
+    /** Video ID remembered for the query, or null; does not count as a cache read. */
+    public String videoId(String query) {
+        YouTubeMatch match = cache.policy().getIfPresentQuietly(key(query));
+        return match == null ? null : match.videoId();
+    }
+
+    /** The shared tier's answer for a query missing here, kept locally for its remaining lifetime. */
+    public Mono<YouTubeMatch> getShared(String query) {
+        String key = key(query);
+        return sharedTier.getYouTube(key).map(hit -> {
+            expiration.put(key, hit.value(), hit.remaining());
+            return hit.value();
+        });
+    }
+
+    public void put(String query, YouTubeMatch match) {
+        String key = key(query);
+        cache.put(key, match);
+        sharedTier.putYouTube(key, match, ttlFor(match));
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats s = cache.stats();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("size", cache.estimatedSize());
+        out.put("hits", s.hitCount());
+        out.put("misses", s.missCount());
+        out.put("hitRate", s.hitRate());
+        out.put("evictions", s.evictionCount());
+        return out;
+    }
+
+    private Duration ttlFor(YouTubeMatch match) {
+        return match.exists() ? positiveTtl : negativeTtl;
+    }
+
+    private static String key(String query) {
+        return query.toLowerCase(Locale.ROOT);
+    }
+
+    @PostConstruct
+    void loadSnapshot() {
+        if (snapshotFile == null || !Files.isReadable(snapshotFile)) return;
+
+        long now = System.currentTimeMillis();
+        int loaded = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(snapshotFile))))) {
+            int version = in.readInt() == SNAPSHOT_MAGIC ? in.readInt() : -1;
+            if (version != 1 && version != SNAPSHOT_VERSION) {
+                logger.warn("Ignoring YouTube cache snapshot {} (unknown format)", snapshotFile);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                boolean exists = in.readBoolean();
+                String videoId = version >= 2 ? in.readUTF() : "";
+                long expiresAt = in.readLong();
+                long remaining = expiresAt - now;
+                if (remaining > 0) {
+                    expiration.put(key, new YouTubeMatch(exists, videoId.isEmpty() ? null : videoId), Duration.ofMillis(remaining));
+                    loaded++;
+                }
+            }
+            logger.info("Loaded {} YouTube existence entries from {}", loaded, snapshotFile);
+        } catch (IOException e) {
+            logger.warn("Failed to load YouTube cache snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${moodify.youtube.cache.snapshot-interval:PT5M}",
+            fixedDelayString = "${moodify.youtube.cache.snapshot-interval:PT5M}")
+    void periodicSnapshot() {
+        writeSnapshot();
+    }
+
+    @PreDestroy
+    void writeSnapshot() {
+        if (snapshotFile == null) return;
+
+        long now = System.currentTimeMillis();
+        Map<String, YouTubeMatch> entries = Map.copyOf(cache.asMap());
+        if (entries.isEmpty()) return;
+        try {
+            Path dir = snapshotFile.toAbsolutePath().getParent();
+            if (dir != null) Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "youtube-exist", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(tmp))))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, YouTubeMatch> e : entries.entrySet()) {
+                    Optional<Duration> ttl = expiration.getExpiresAfter(e.getKey());
+                    out.writeUTF(e.getKey());
+                    out.writeBoolean(e.getValue().exists());
+                    out.writeUTF(e.getValue().videoId() == null ? "" : e.getValue().videoId());
+                    out.writeLong(now + ttl.orElse(Duration.ZERO).toMillis());
+                }
+            }
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Wrote {} YouTube existence entries to {}", entries.size(), snapshotFile);
+        } catch (IOException e) {
+            logger.warn("Failed to write YouTube cache snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+}
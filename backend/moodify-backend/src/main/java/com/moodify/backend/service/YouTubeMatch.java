@@ -0,0 +1,15 @@
+package com.moodify.backend.service;
+
+/**
+ * Outcome of a YouTube search for a song: whether any video was listed and, if the results
+ * page showed it, the first video's 11-character ID (null otherwise).
+ */
+public record YouTubeMatch(boolean exists, String videoId) {
+
+    public static final YouTubeMatch NOT_FOUND = new YouTubeMatch(false, null);
+    public static final YouTubeMatch FOUND = new YouTubeMatch(true, null);
+
+    public static YouTubeMatch video(String videoId) {
+        return new YouTubeMatch(true, videoId);
+    }
+}
@@ -0,0 +1,130 @@
+package com.moodify.backend.service;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Incremental, case-insensitive search for video-result markers in a YouTube results page.
+ * Bytes are fed chunk by chunk as they arrive; each marker keeps its own KMP match state,
+ * so a marker split across two chunks is still found and nothing is ever buffered.
+ * The ID of the first listed video (the 11 characters after {@code "videoId":"} or
+ * {@code /watch?v=}) is captured as well; once a result is found, scanning goes on for at
+ * most {@link #ID_WINDOW} bytes to find one. One instance scans one response and is not
+ * thread-safe.
+ */
+final class YouTubeResultScanner {
+
+    private static final int VIDEO_ID_LENGTH = 11;
+
+    // How far past the first result marker to keep looking for a video ID
+    static final int ID_WINDOW = 16 * 1024;
+
+    // Markers that only appear on a results page when at least one video is listed
+    private static final byte[][] MARKERS = {
+            "/watch?v=".getBytes(StandardCharsets.US_ASCII),
+            "\"videoid\":\"".getBytes(StandardCharsets.US_ASCII),
+            "videorenderer".getBytes(StandardCharsets.US_ASCII)
+    };
+
+    // Markers directly followed by a video ID
+    private static final boolean[] ID_FOLLOWS = {true, true, false};
+
+    private static final int[][] FAILURE = new int[MARKERS.length][];
+
+    static {
+        for (int m = 0; m < MARKERS.length; m++) {
+            FAILURE[m] = failureTable(MARKERS[m]);
+        }
+    }
+
+    private final int[] matched = new int[MARKERS.length];
+    private long bytesScanned;
+    private boolean found;
+    private long foundAt;
+
+    // Video ID being read after an ID marker (original case), or null
+    private StringBuilder capture;
+    private String videoId;
+
+    /**
+     * Scan the readable bytes of the buffer (without consuming them); true once the rest of
+     * the page is not needed: a video ID was read, or none turned up within the window after
+     * the first marker.
+     */
+    boolean feed(DataBuffer buffer) {
+        int end = buffer.writePosition();
+        for (int i = buffer.readPosition(); i < end && !done(); i++) {
+            accept(buffer.getByte(i));
+        }
+        return done();
+    }
+
+    boolean found() {
+        return found;
+    }
+
+    /** First video ID seen, or null. */
+    String videoId() {
+        return videoId;
+    }
+
+    YouTubeMatch result() {
+        if (!found) return YouTubeMatch.NOT_FOUND;
+        return videoId != null ? YouTubeMatch.video(videoId) : YouTubeMatch.FOUND;
+    }
+
+    long bytesScanned() {
+        return bytesScanned;
+    }
+
+    private boolean done() {
+        return videoId != null || (found && bytesScanned - foundAt >= ID_WINDOW);
+    }
+
+    private void accept(byte raw) {
+        bytesScanned++;
+        if (capture != null) {
+            if (isIdChar(raw)) {
+                capture.append((char) raw);
+                if (capture.length() == VIDEO_ID_LENGTH) {
+                    videoId = capture.toString();
+                    capture = null;
+                }
+                return;
+            }
+            capture = null;
+        }
+        byte b = (raw >= 'A' && raw <= 'Z') ? (byte) (raw + ('a' - 'A')) : raw;
+        for (int m = 0; m < MARKERS.length; m++) {
+            byte[] marker = MARKERS[m];
+            int j = matched[m];
+            while (j > 0 && marker[j] != b) j = FAILURE[m][j - 1];
+            if (marker[j] == b) j++;
+            if (j == marker.length) {
+                if (!found) {
+                    found = true;
+                    foundAt = bytesScanned;
+                }
+                if (ID_FOLLOWS[m]) capture = new StringBuilder(VIDEO_ID_LENGTH);
+                j = FAILURE[m][j - 1];
+            }
+            matched[m] = j;
+        }
+    }
+
+    private static boolean isIdChar(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '-' || b == '_';
+    }
+
+    private static int[] failureTable(byte[] pattern) {
+        int[] table = new int[pattern.length];
+        int k = 0;
+        for (int i = 1; i < pattern.length; i++) {
+            while (k > 0 && pattern[i] != pattern[k]) k = table[k - 1];
+            if (pattern[i] == pattern[k]) k++;
+            table[i] = k;
+        }
+        return table;
+    }
+}
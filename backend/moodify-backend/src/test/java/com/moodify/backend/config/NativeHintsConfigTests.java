@@ -0,0 +1,18 @@
+package com.moodify.backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NativeHintsConfigTests {
+
+	@Test
+	void songCatalogIsIncludedInTheNativeImage() {
+		RuntimeHints hints = new RuntimeHints();
+		new NativeHintsConfig.ResourceHints().registerHints(hints, getClass().getClassLoader());
+
+		assertTrue(RuntimeHintsPredicates.resource().forResource("catalog/songs.tsv").test(hints));
+	}
+}
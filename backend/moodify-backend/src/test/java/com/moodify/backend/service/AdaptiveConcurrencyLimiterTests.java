@@ -0,0 +1,69 @@
+package com.moodify.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTests {
+
+	private static final long FAST = Duration.ofMillis(100).toNanos();
+	private static final long SLOW = Duration.ofSeconds(20).toNanos();
+
+	private static AdaptiveConcurrencyLimiter limiter() {
+		return new AdaptiveConcurrencyLimiter(4, 2, 8, Duration.ofSeconds(10));
+	}
+
+	// Fill the limit, then let every call finish with the given latency
+	private static void round(AdaptiveConcurrencyLimiter limiter, long elapsedNanos, boolean failed) {
+		int acquired = 0;
+		while (limiter.tryAcquire()) acquired++;
+		for (int i = 0; i < acquired; i++) limiter.release(elapsedNanos, failed);
+	}
+
+	@Test
+	void rejectsCallsOverTheLimit() {
+		AdaptiveConcurrencyLimiter limiter = limiter();
+		for (int i = 0; i < 4; i++) assertTrue(limiter.tryAcquire());
+		assertFalse(limiter.tryAcquire());
+		assertEquals(1, limiter.rejected());
+		limiter.release();
+		assertEquals(3, limiter.inFlight());
+		assertEquals(4, limiter.limit());
+	}
+
+	@Test
+	void growsAdditivelyWhileUsedAndBacksOffOnSlowOrFailedCalls() {
+		AdaptiveConcurrencyLimiter limiter = limiter();
+		// About +1 per fully used round trip (+1/limit per call while at least half the limit is in flight)
+		round(limiter, FAST, false);
+		round(limiter, FAST, false);
+		assertEquals(4, limiter.limit());
+		round(limiter, FAST, false);
+		assertEquals(5, limiter.limit());
+		for (int i = 0; i < 20; i++) round(limiter, FAST, false);
+		assertEquals(8, limiter.limit());
+
+		limiter.tryAcquire();
+		limiter.release(SLOW, false);
+		assertEquals(6, limiter.limit());
+		limiter.tryAcquire();
+		limiter.release(FAST, true);
+		assertEquals(4, limiter.limit());
+		for (int i = 0; i < 5; i++) round(limiter, FAST, true);
+		assertEquals(2, limiter.limit());
+	}
+
+	@Test
+	void doesNotGrowWhileMostlyIdle() {
+		AdaptiveConcurrencyLimiter limiter = limiter();
+		for (int i = 0; i < 50; i++) {
+			limiter.tryAcquire();
+			limiter.release(FAST, false);
+		}
+		assertEquals(4, limiter.limit());
+	}
+}
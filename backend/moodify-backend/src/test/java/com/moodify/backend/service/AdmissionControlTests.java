@@ -0,0 +1,72 @@
+package com.moodify.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdmissionControlTests {
+
+	@Test
+	void queuesUpToMaxQueueAndShedsTheRest() {
+		AdmissionControl admission = new AdmissionControl(true, 1, 1, Duration.ofSeconds(5), new SimpleMeterRegistry());
+		Sinks.One<String> first = Sinks.one();
+
+		Mono<String> running = admission.admit(first::asMono, () -> "shed");
+		Mono<String> queued = admission.admit(() -> Mono.just("second"), () -> "shed");
+		Mono<String> rejected = admission.admit(() -> Mono.just("third"), () -> "shed");
+
+		var runningResult = running.toFuture();
+		var queuedResult = queued.toFuture();
+		assertEquals("shed", rejected.block(Duration.ofSeconds(1)));
+		assertEquals(1, admission.stats().get("queued"));
+
+		first.tryEmitValue("first");
+		assertEquals("first", runningResult.join());
+		assertEquals("second", queuedResult.join());
+		assertEquals(0, admission.stats().get("inFlight"));
+		assertEquals(0, admission.stats().get("queued"));
+	}
+
+	@Test
+	void shedsRequestsThatWaitTooLong() {
+		AdmissionControl admission = new AdmissionControl(true, 1, 10, Duration.ofMillis(50), new SimpleMeterRegistry());
+		Sinks.One<String> first = Sinks.one();
+		admission.admit(first::asMono, () -> "shed").subscribe();
+
+		assertEquals("shed", admission.admit(() -> Mono.just("second"), () -> "shed").block(Duration.ofSeconds(1)));
+		assertEquals(1L, admission.stats().get("shedTimeout"));
+
+		// The permit goes to the next request once the first one is done, not to the shed one
+		first.tryEmitValue("first");
+		assertEquals("third", admission.admit(() -> Mono.just("third"), () -> "shed").block(Duration.ofSeconds(1)));
+		assertEquals(0, admission.stats().get("inFlight"));
+	}
+
+	@Test
+	void heavyRequestsWaitForTheirPermitsAndAreNotOvertaken() {
+		AdmissionControl admission = new AdmissionControl(true, 4, 10, Duration.ofSeconds(5), new SimpleMeterRegistry());
+		Sinks.One<String> light = Sinks.one();
+		Sinks.One<String> heavy = Sinks.one();
+
+		admission.admit(light::asMono, () -> "shed").subscribe();
+		// Wants 100 permits, capped at all 4: waits until the light request is done
+		var batch = admission.admit(heavy::asMono, () -> "shed", 100).toFuture();
+		var later = admission.admit(() -> Mono.just("later"), () -> "shed").toFuture();
+		assertEquals(1, admission.stats().get("inFlight"));
+		assertEquals(2, admission.stats().get("queued"));
+
+		light.tryEmitValue("light");
+		assertEquals(4, admission.stats().get("inFlight"));
+		assertEquals(1, admission.stats().get("queued"));
+
+		heavy.tryEmitValue("batch");
+		assertEquals("batch", batch.join());
+		assertEquals("later", later.join());
+		assertEquals(0, admission.stats().get("inFlight"));
+	}
+}
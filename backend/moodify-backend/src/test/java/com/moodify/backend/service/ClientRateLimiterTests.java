@@ -0,0 +1,40 @@
+package com.moodify.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClientRateLimiterTests {
+
+	@Test
+	void allowsBurstThenAsksToWaitPerClient() {
+		ClientRateLimiter limiter = new ClientRateLimiter(true, 1, 3, 1000, new SimpleMeterRegistry());
+
+		for (int i = 0; i < 3; i++) assertEquals(Duration.ZERO, limiter.tryAcquire("10.0.0.1"));
+		Duration wait = limiter.tryAcquire("10.0.0.1");
+		assertTrue(wait.compareTo(Duration.ZERO) > 0 && wait.compareTo(Duration.ofSeconds(1)) <= 0, wait::toString);
+
+		// Other clients have their own bucket
+		assertEquals(Duration.ZERO, limiter.tryAcquire("10.0.0.2"));
+	}
+
+	@Test
+	void chargesEveryPermitAndCarriesDebtPastTheBurst() {
+		ClientRateLimiter limiter = new ClientRateLimiter(true, 10, 5, 1000, new SimpleMeterRegistry());
+
+		assertEquals(Duration.ZERO, limiter.tryAcquire("10.0.0.1", 0));
+		// A full bucket lets a batch larger than the burst through, but the client then owes its cost
+		assertEquals(Duration.ZERO, limiter.tryAcquire("10.0.0.1", 20));
+		Duration wait = limiter.tryAcquire("10.0.0.1");
+		assertTrue(wait.compareTo(Duration.ofMillis(1000)) > 0 && wait.compareTo(Duration.ofMillis(1600)) <= 0, wait::toString);
+
+		// Several permits need that many tokens in the bucket
+		assertEquals(Duration.ZERO, limiter.tryAcquire("10.0.0.2", 3));
+		assertTrue(limiter.tryAcquire("10.0.0.2", 3).compareTo(Duration.ZERO) > 0);
+		assertEquals(Duration.ZERO, limiter.tryAcquire("10.0.0.2", 2));
+	}
+}
@@ -0,0 +1,84 @@
+package com.moodify.backend.service;
+
+import reactor.netty.DisposableServer;
+import reactor.netty.tcp.TcpServer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process stand-in for a Redis server: answers PING, GET, SET (with PX), AUTH and SELECT
+ * over RESP2 from an in-memory map, enough for {@link RespCacheStore}.
+ */
+final class EmbeddedRespServer implements AutoCloseable {
+
+	private record Value(byte[] bytes, long expiresAtMillis) {}
+
+	private final Map<String, Value> data = new ConcurrentHashMap<>();
+	private final DisposableServer server;
+
+	EmbeddedRespServer() {
+		this.server = TcpServer.create()
+				.host("127.0.0.1")
+				.port(0)
+				.doOnConnection(connection -> connection.addHandlerLast("resp", new RespCacheStore.ReplyDecoder()))
+				.handle((in, out) -> out.sendByteArray(in.receiveObject().map(command -> execute((List<?>) command))))
+				.bindNow();
+	}
+
+	String url() {
+		return "redis://127.0.0.1:" + server.port();
+	}
+
+	/** Stores bytes as-is, bypassing the client (e.g. to plant an unreadable entry). */
+	void rawSet(String key, byte[] bytes) {
+		data.put(key, new Value(bytes, Long.MAX_VALUE));
+	}
+
+	@Override
+	public void close() {
+		server.disposeNow();
+	}
+
+	private byte[] execute(List<?> args) {
+		String name = text(args.get(0)).toUpperCase();
+		switch (name) {
+			case "PING":
+				return simple("PONG");
+			case "AUTH":
+			case "SELECT":
+				return simple("OK");
+			case "GET": {
+				Value value = data.get(text(args.get(1)));
+				if (value == null || value.expiresAtMillis() <= System.currentTimeMillis()) return "$-1\r\n".getBytes(StandardCharsets.US_ASCII);
+				byte[] header = ("$" + value.bytes().length + "\r\n").getBytes(StandardCharsets.US_ASCII);
+				byte[] reply = new byte[header.length + value.bytes().length + 2];
+				System.arraycopy(header, 0, reply, 0, header.length);
+				System.arraycopy(value.bytes(), 0, reply, header.length, value.bytes().length);
+				reply[reply.length - 2] = '\r';
+				reply[reply.length - 1] = '\n';
+				return reply;
+			}
+			case "SET": {
+				long expiresAt = Long.MAX_VALUE;
+				if (args.size() >= 5 && text(args.get(3)).equalsIgnoreCase("PX")) {
+					expiresAt = System.currentTimeMillis() + Long.parseLong(text(args.get(4)));
+				}
+				data.put(text(args.get(1)), new Value((byte[]) args.get(2), expiresAt));
+				return simple("OK");
+			}
+			default:
+				return ("-ERR unknown command '" + name + "'\r\n").getBytes(StandardCharsets.US_ASCII);
+		}
+	}
+
+	private static String text(Object arg) {
+		return new String((byte[]) arg, StandardCharsets.UTF_8);
+	}
+
+	private static byte[] simple(String reply) {
+		return ("+" + reply + "\r\n").getBytes(StandardCharsets.US_ASCII);
+	}
+}
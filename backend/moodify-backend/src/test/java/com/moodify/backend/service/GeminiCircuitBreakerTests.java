@@ -0,0 +1,81 @@
+package com.moodify.backend.service;
+
+import com.moodify.backend.service.GeminiCircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class GeminiCircuitBreakerTests {
+
+	// Opens at half of the last 4 calls failing; with no open delay the next call probes at once
+	private static GeminiCircuitBreaker breaker(Duration openDuration) {
+		return new GeminiCircuitBreaker(0.5, 4, 4, openDuration, 2);
+	}
+
+	private static void call(GeminiCircuitBreaker breaker, boolean fail) {
+		long generation = breaker.tryAcquire();
+		assertNotEquals(GeminiCircuitBreaker.REFUSED, generation);
+		if (fail) breaker.onFailure(generation);
+		else breaker.onSuccess(generation);
+	}
+
+	@Test
+	void opensOnFailureRateAndClosesAfterProbes() {
+		GeminiCircuitBreaker breaker = breaker(Duration.ZERO);
+		call(breaker, false);
+		call(breaker, true);
+		call(breaker, false);
+		assertEquals(State.CLOSED, breaker.state());
+		call(breaker, true);
+		assertEquals(State.OPEN, breaker.state());
+
+		// Half-open: only two probes at a time; one failure re-opens
+		long probe = breaker.tryAcquire();
+		assertEquals(State.HALF_OPEN, breaker.state());
+		breaker.tryAcquire();
+		assertEquals(GeminiCircuitBreaker.REFUSED, breaker.tryAcquire());
+		breaker.onFailure(probe);
+		assertEquals(State.OPEN, breaker.state());
+
+		call(breaker, false);
+		assertEquals(State.HALF_OPEN, breaker.state());
+		call(breaker, false);
+		assertEquals(State.CLOSED, breaker.state());
+	}
+
+	@Test
+	void refusesWhileOpen() {
+		GeminiCircuitBreaker breaker = breaker(Duration.ofHours(1));
+		for (int i = 0; i < 4; i++) call(breaker, true);
+		assertEquals(State.OPEN, breaker.state());
+		assertEquals(GeminiCircuitBreaker.REFUSED, breaker.tryAcquire());
+		assertEquals(1, breaker.shortCircuited());
+	}
+
+	@Test
+	void ignoresOutcomesOfCallsAdmittedBeforeAStateChange() {
+		GeminiCircuitBreaker breaker = breaker(Duration.ZERO);
+		long slowFailure = breaker.tryAcquire();
+		long slowSuccess = breaker.tryAcquire();
+		for (int i = 0; i < 4; i++) call(breaker, true);
+		assertEquals(State.OPEN, breaker.state());
+
+		long probe = breaker.tryAcquire();
+		assertEquals(State.HALF_OPEN, breaker.state());
+		// A late failure must not re-open, a late success must not count as a probe
+		breaker.onFailure(slowFailure);
+		breaker.onSuccess(slowSuccess);
+		assertEquals(State.HALF_OPEN, breaker.state());
+		breaker.onSuccess(probe);
+		assertEquals(State.HALF_OPEN, breaker.state());
+
+		long lastProbe = breaker.tryAcquire();
+		long lateProbe = breaker.tryAcquire();
+		breaker.onSuccess(lastProbe);
+		assertEquals(State.CLOSED, breaker.state());
+		assertEquals(GeminiCircuitBreaker.REFUSED, lateProbe);
+	}
+}
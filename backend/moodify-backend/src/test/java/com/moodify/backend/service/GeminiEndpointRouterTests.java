@@ -0,0 +1,50 @@
+package com.moodify.backend.service;
+
+import com.moodify.backend.service.GeminiEndpointRouter.Endpoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeminiEndpointRouterTests {
+
+	private static final Endpoint BETA = new Endpoint("v1beta", "models/gemini-2.5-flash");
+	private static final Endpoint V1 = new Endpoint("v1", "models/gemini-2.5-flash");
+
+	@Test
+	void switchesAwayOnlyAfterConsecutiveFailures() {
+		GeminiEndpointRouter router = new GeminiEndpointRouter(List.of(BETA, V1), List.of(), 3);
+
+		// Isolated failures are noise
+		router.recordFailure(BETA);
+		router.recordFailure(BETA);
+		router.recordSuccess(BETA, 100);
+		router.recordFailure(BETA);
+		router.recordFailure(BETA);
+		assertEquals(BETA, router.preferred());
+		assertTrue(router.unhealthy().isEmpty());
+
+		router.recordFailure(BETA);
+		assertEquals(V1, router.preferred());
+		assertEquals(List.of(BETA), router.unhealthy());
+		assertEquals(List.of(V1, BETA), router.order());
+
+		router.markHealthy(BETA);
+		assertTrue(router.unhealthy().isEmpty());
+	}
+
+	@Test
+	void prefersAClearlyFasterEndpoint() {
+		GeminiEndpointRouter router = new GeminiEndpointRouter(List.of(BETA, V1), List.of(), 3);
+		router.recordSuccess(BETA, 1000);
+		router.recordSuccess(V1, 900);
+		// Not enough faster to give up the sticky choice
+		assertEquals(BETA, router.preferred());
+
+		for (int i = 0; i < 5; i++) router.recordSuccess(V1, 300);
+		assertEquals(V1, router.preferred());
+		assertEquals(List.of(V1, BETA), router.order());
+	}
+}
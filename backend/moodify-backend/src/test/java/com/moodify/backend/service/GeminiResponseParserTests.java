@@ -0,0 +1,77 @@
+package com.moodify.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class GeminiResponseParserTests {
+
+	private final GeminiResponseParser parser = new GeminiResponseParser();
+
+	@Test
+	void readsPartsTextAndSkipsMetadata() {
+		String response = """
+				{"candidates":[{"content":{"parts":[{"text":"Kesariya - Arijit Singh\\n"},{"text":"Say \\"Hi\\" - X"}],"role":"model"},
+				"finishReason":"STOP","safetyRatings":[{"category":"x"}]}],"usageMetadata":{"promptTokenCount":3}}
+				""";
+		assertEquals("Kesariya - Arijit Singh\n\nSay \"Hi\" - X", parser.generatedText(response));
+	}
+
+	@Test
+	void unwrapsJsonEmbeddedInGeneratedText() {
+		String response = """
+				{"candidates":[{"content":{"parts":[{"text":"{\\"text\\":\\"Fix You - Coldplay\\\\nMad World - Gary Jules\\"}"}]}}]}
+				""";
+		assertEquals(List.of("Fix You - Coldplay", "Mad World - Gary Jules"),
+				parser.candidates(parser.generatedText(response)));
+	}
+
+	@Test
+	void fallsBackForOtherShapes() {
+		assertEquals("1. Lag Ja Gale - Lata Mangeshkar\n4) Abhi Na Jao - Asha Bhosle",
+				parser.generatedText("{\"outputs\":[{\"content\":[{\"text\":\"1. Lag Ja Gale - Lata Mangeshkar\"}]},{\"text\":\"4) Abhi Na Jao - Asha Bhosle\"}]}"));
+		assertEquals("Out - Put", parser.generatedText("{\"candidates\":[{\"output\":\"Out - Put\"}]}"));
+	}
+
+	@Test
+	void normalizesLines() {
+		assertEquals(List.of("Lag Ja Gale - Lata Mangeshkar", "Abhi Na Jao - Asha Bhosle", "Tere Bina - A.R. Rahman", "Skinny Love Bon - Iver"),
+				parser.candidates("1. Lag Ja Gale - Lata Mangeshkar\r\n  4)Abhi Na Jao-Asha Bhosle, Mohammed Rafi\n\nTere Bina - A.R. Rahman, Chinmayi\nSkinny Love Bon Iver\n1. Lag Ja Gale - Lata Mangeshkar"));
+		assertNull(parser.toCandidate("  12.  "));
+		assertNull(parser.toCandidate("Single"));
+	}
+
+	@Test
+	void readsStructuredAnswers() {
+		String response = """
+				{"candidates":[{"content":{"parts":[{"text":"[{\\"title\\": \\" Kesariya \\", \\"artist\\": \\"Arijit Singh, Pritam\\"},\\n{\\"artist\\": \\"Coldplay\\", \\"title\\": \\"Fix You\\", \\"year\\": 2005}, \\"2. Mad World - Gary Jules\\", {\\"title\\": \\"No Artist\\"}]"}]}}]}
+				""";
+		assertEquals(List.of("Kesariya - Arijit Singh", "Fix You - Coldplay", "Mad World - Gary Jules"), parser.structuredCandidates(response));
+		assertEquals(List.of(), parser.structuredCandidates("{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\" []\"}]}}]}"));
+	}
+
+	@Test
+	void keepsSongsBeforeTheOutputLimit() {
+		String response = """
+				{"candidates":[{"content":{"parts":[{"text":"[{\\"title\\": \\"Fix You\\", \\"artist\\": \\"Coldplay\\"}, {\\"title\\": \\"Mad Wo"}]},"finishReason":"MAX_TOKENS"}]}
+				""";
+		assertEquals(List.of("Fix You - Coldplay"), parser.structuredCandidates(response));
+		assertNull(parser.structuredCandidates("{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"[{\\\"title\"}]}}]}"));
+	}
+
+	@Test
+	void textAnswersAreNotStructured() {
+		assertNull(parser.structuredCandidates("{\"candidates\":[{\"content\":{\"parts\":[{\"text\":\"Fix You - Coldplay\"}]}}]}"));
+		assertNull(parser.structuredCandidates("not json"));
+	}
+
+	@Test
+	void requestBodyEscapesThePrompt() {
+		String prompt = "Mood: \"sad\" \\ lonely\nLine two";
+		assertEquals("{\"contents\":[{\"parts\":[{\"text\":\"Mood: \\\"sad\\\" \\\\ lonely\\nLine two\"}]}]}",
+				GeminiClient.requestBody(prompt));
+	}
+}
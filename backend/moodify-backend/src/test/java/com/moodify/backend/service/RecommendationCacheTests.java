@@ -0,0 +1,77 @@
+package com.moodify.backend.service;
+
+import com.moodify.backend.dto.MoodRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RecommendationCacheTests {
+
+	private static final List<Song> SONGS = List.of(new Song("Kesariya - Arijit Singh", null));
+
+	private static RecommendationCache cache() {
+		SharedCacheTier disabled = new SharedCacheTier("", Duration.ofMillis(100), Duration.ofSeconds(1), 5, Duration.ofSeconds(30), new SimpleMeterRegistry());
+		return new RecommendationCache(1 << 20, Duration.ofMinutes(10), 100, disabled, new SimpleMeterRegistry());
+	}
+
+	private static MoodRequest request(String feeling) {
+		MoodRequest request = new MoodRequest();
+		request.setMood("Sad");
+		request.setEra("New");
+		request.setLanguage("Hindi");
+		request.setFeeling(feeling);
+		return request;
+	}
+
+	@Test
+	void equivalentRequestsInFlightShareOneLoad() {
+		RecommendationCache cache = cache();
+		Sinks.One<List<Song>> answer = Sinks.one();
+		AtomicInteger loads = new AtomicInteger();
+
+		Mono<List<Song>> first = cache.get(request("Missing home"), () -> {
+			loads.incrementAndGet();
+			return answer.asMono();
+		}).cache();
+		Mono<List<Song>> second = cache.get(request("missing   HOME!"), () -> {
+			loads.incrementAndGet();
+			return Mono.just(List.of());
+		}).cache();
+		first.subscribe();
+		second.subscribe();
+
+		answer.tryEmitValue(SONGS);
+		assertEquals(SONGS, first.block(Duration.ofSeconds(1)));
+		assertEquals(SONGS, second.block(Duration.ofSeconds(1)));
+		assertEquals(1, loads.get());
+		assertEquals(1L, cache.stats().get("coalesced"));
+	}
+
+	@Test
+	void differentHindiFeelingsDoNotShareAnAnswer() {
+		RecommendationCache cache = cache();
+		cache.get(request("दुख"), () -> Mono.just(SONGS)).block(Duration.ofSeconds(1));
+
+		assertEquals(SONGS, cache.getIfPresent(request("दुख")).block(Duration.ofSeconds(1)));
+		assertNull(cache.getIfPresent(request("देख")).block(Duration.ofSeconds(1)));
+	}
+
+	@Test
+	void failedLoadIsRetried() {
+		RecommendationCache cache = cache();
+		Mono<List<Song>> failing = cache.get(request("tired"), () -> Mono.error(new RuntimeException("Gemini down")));
+		assertEquals("Gemini down", assertThrows(RuntimeException.class,
+				() -> failing.block(Duration.ofSeconds(1))).getMessage());
+
+		assertEquals(SONGS, cache.get(request("tired"), () -> Mono.just(SONGS)).block(Duration.ofSeconds(1)));
+	}
+}
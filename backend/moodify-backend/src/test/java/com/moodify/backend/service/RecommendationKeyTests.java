@@ -0,0 +1,25 @@
+package com.moodify.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class RecommendationKeyTests {
+
+	@Test
+	void foldsCasePunctuationAndSpacing() {
+		assertEquals("i m feeling great", RecommendationKey.canonical("  I'm  feeling GREAT!!"));
+		assertEquals("cafe 2", RecommendationKey.canonical("ＣＡＦＥ—２"));
+		assertEquals("", RecommendationKey.canonical(null));
+		assertEquals("", RecommendationKey.canonical(" ?! "));
+	}
+
+	@Test
+	void keepsCombiningMarksOfIndicScripts() {
+		assertEquals("मैं खुश हूँ", RecommendationKey.canonical("मैं  खुश हूँ!"));
+		assertEquals("আমি ভালো আছি", RecommendationKey.canonical("আমি ভালো, আছি"));
+		assertNotEquals(RecommendationKey.canonical("दुख"), RecommendationKey.canonical("देख"));
+		assertNotEquals(RecommendationKey.canonical("ভালো"), RecommendationKey.canonical("ভাল"));
+	}
+}
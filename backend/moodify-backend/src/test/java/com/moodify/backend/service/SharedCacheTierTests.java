@@ -0,0 +1,112 @@
+package com.moodify.backend.service;
+
+import com.moodify.backend.dto.MoodRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SharedCacheTierTests {
+
+	private static final List<Song> SONGS = List.of(new Song("Kesariya - Arijit Singh", "BddP6PYo2gs"), new Song("Tum Hi Ho - Arijit Singh", null));
+
+	private static SharedCacheTier tier(String url) {
+		return new SharedCacheTier(url, Duration.ofMillis(200), Duration.ofMillis(200), 2, Duration.ofSeconds(30), new SimpleMeterRegistry());
+	}
+
+	private static RecommendationCache recommendations(SharedCacheTier tier) {
+		return new RecommendationCache(1 << 20, Duration.ofMinutes(10), 100, tier, new SimpleMeterRegistry());
+	}
+
+	private static MoodRequest request(String feeling) {
+		MoodRequest request = new MoodRequest();
+		request.setMood("Happy");
+		request.setEra("New");
+		request.setLanguage("Hindi");
+		request.setFeeling(feeling);
+		return request;
+	}
+
+	// Shared-tier writes are fire-and-forget
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) Thread.sleep(20);
+		assertTrue(condition.getAsBoolean(), "condition not met in time");
+	}
+
+	@Test
+	void songsGeneratedOnOneInstanceAreHitsOnAnother() throws InterruptedException {
+		try (EmbeddedRespServer server = new EmbeddedRespServer()) {
+			RecommendationCache first = recommendations(tier(server.url()));
+			SharedCacheTier secondTier = tier(server.url());
+			RecommendationCache second = recommendations(secondTier);
+			AtomicInteger generated = new AtomicInteger();
+
+			assertEquals(SONGS, first.get(request("dancing"), () -> {
+				generated.incrementAndGet();
+				return Mono.just(SONGS);
+			}).block());
+			await(() -> secondTier.getSongs(RecommendationKey.of(request("dancing"))).block() != null);
+
+			assertEquals(SONGS, second.get(request("Dancing!"), () -> {
+				generated.incrementAndGet();
+				return Mono.just(List.<Song>of());
+			}).block());
+			assertEquals(1, generated.get());
+			// Now in the second instance's near cache
+			assertEquals(SONGS, second.getIfPresent(request("dancing")).block());
+		}
+	}
+
+	@Test
+	void nearCacheEntryExpiresWithTheSharedOne() throws InterruptedException {
+		try (EmbeddedRespServer server = new EmbeddedRespServer()) {
+			SharedCacheTier tier = tier(server.url());
+			YouTubeExistenceCache near = new YouTubeExistenceCache(100, Duration.ofDays(7), Duration.ofHours(6), "", tier, new SimpleMeterRegistry());
+
+			tier.putYouTube("kesariya arijit singh", YouTubeMatch.video("BddP6PYo2gs"), Duration.ofMillis(300));
+			await(() -> tier.getYouTube("kesariya arijit singh").block() != null);
+
+			assertEquals(YouTubeMatch.video("BddP6PYo2gs"), near.getShared("Kesariya Arijit Singh").block());
+			assertEquals("BddP6PYo2gs", near.videoId("kesariya arijit singh"));
+			Thread.sleep(400);
+			assertNull(near.getIfPresent("kesariya arijit singh"));
+			assertNull(near.getShared("kesariya arijit singh").block());
+		}
+	}
+
+	@Test
+	void unreachableStoreFailsOpenAndIsBypassed() {
+		String url;
+		try (EmbeddedRespServer server = new EmbeddedRespServer()) {
+			url = server.url();
+		}
+		SharedCacheTier tier = tier(url);
+		RecommendationCache cache = recommendations(tier);
+
+		for (int i = 0; i < 5; i++) {
+			assertEquals(SONGS, cache.get(request("run " + i), () -> Mono.just(SONGS)).block(Duration.ofSeconds(2)));
+		}
+		assertEquals(true, tier.stats().get("bypassing"));
+		assertTrue((long) tier.stats().get("bypassed") > 0);
+	}
+
+	@Test
+	void unreadableEntriesAreMisses() throws InterruptedException {
+		try (EmbeddedRespServer server = new EmbeddedRespServer()) {
+			SharedCacheTier tier = tier(server.url());
+			tier.putYouTube("query", YouTubeMatch.FOUND, Duration.ofMinutes(1));
+			await(() -> tier.getYouTube("query").block() != null);
+
+			server.rawSet("moodify:v1:yt:query", new byte[]{9, 9, 9});
+			assertNull(tier.getYouTube("query").block());
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package com.moodify.backend.service;
+
+import com.moodify.backend.service.SongCatalogFile.Song;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SongCatalogTests {
+
+	private static SongCatalog catalog(String file) {
+		SongCatalog catalog = new SongCatalog(file, 0.8, new SimpleMeterRegistry());
+		catalog.load();
+		return catalog;
+	}
+
+	@Test
+	void matchesExactlyIgnoringCaseAndPunctuation() {
+		SongCatalog catalog = catalog("");
+		assertTrue(catalog.contains("tum hi ho - ARIJIT SINGH"));
+		assertEquals("Can't Stop the Feeling! - Justin Timberlake", catalog.canonical("Cant Stop The Feeling - Justin Timberlake"));
+	}
+
+	@Test
+	void correctsNearMissesOnly() {
+		SongCatalog catalog = catalog("");
+		assertEquals("Kal Ho Naa Ho - Sonu Nigam", catalog.canonical("Kal Ho Na Ho - Sonu Nigam"));
+		assertEquals("Tum Hi Ho - Arijit Singh", catalog.canonical("Tum Hi Ho - Arijit"));
+		// Same title by someone else, or an unknown song, is left for the YouTube check
+		assertEquals("Tum Hi Ho - Lata Mangeshkar", catalog.canonical("Tum Hi Ho - Lata Mangeshkar"));
+		assertEquals("Unknown Song - Nobody", catalog.canonical("Unknown Song - Nobody"));
+		assertFalse(catalog.contains("Unknown Song - Nobody"));
+	}
+
+	@Test
+	void loadsPackedFile(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("songs.bin");
+		SongCatalogFile.writePacked(List.of(new Song("Dil Se Re", "A.R. Rahman"), new Song("Señorita", "Shawn Mendes")), file);
+
+		SongCatalog catalog = catalog(file.toString());
+		assertEquals(2, catalog.size());
+		assertTrue(catalog.contains("Señorita - Shawn Mendes"));
+		assertFalse(catalog.contains("Tum Hi Ho - Arijit Singh"));
+	}
+}
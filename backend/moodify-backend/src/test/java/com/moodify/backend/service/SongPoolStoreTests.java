@@ -0,0 +1,60 @@
+package com.moodify.backend.service;
+
+import com.moodify.backend.dto.MoodRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SongPoolStoreTests {
+
+	private static final List<String> POOL = List.of(
+			"Tum Hi Ho - Arijit Singh",
+			"Kal Ho Naa Ho - Sonu Nigam",
+			"Channa Mereya - Arijit Singh",
+			"Agar Tum Saath Ho - Alka Yagnik",
+			"Kabira - Tochi Raina",
+			"Tera Ban Jaunga - Akhil Sachdeva");
+
+	private static MoodRequest request(String mood, String feeling) {
+		MoodRequest request = new MoodRequest();
+		request.setMood(mood);
+		request.setEra("New");
+		request.setLanguage("Hindi");
+		request.setFeeling(feeling);
+		return request;
+	}
+
+	@Test
+	void picksFromTheCombinationPoolRankedByFeeling() {
+		SongPoolStore store = new SongPoolStore("", new SimpleMeterRegistry());
+		store.put(request("Romantic", ""), POOL);
+
+		// Feeling and punctuation differ, the pool is shared
+		List<String> songs = store.pick(request("romantic!", "missing you, tomorrow kal"), 5).orElseThrow();
+		assertEquals(5, songs.size());
+		assertEquals("Kal Ho Naa Ho - Sonu Nigam", songs.get(0));
+		assertEquals(songs, store.pick(request("Romantic", "missing you, tomorrow kal"), 5).orElseThrow());
+
+		assertTrue(store.pick(request("Sad", "missing you"), 5).isEmpty());
+	}
+
+	@Test
+	void reloadsPoolsFromSnapshot(@TempDir Path dir) {
+		String file = dir.resolve("pools.snapshot").toString();
+		SongPoolStore store = new SongPoolStore(file, new SimpleMeterRegistry());
+		store.put(request("Romantic", ""), POOL);
+		store.writeSnapshot();
+
+		SongPoolStore reloaded = new SongPoolStore(file, new SimpleMeterRegistry());
+		reloaded.loadSnapshot();
+		assertTrue(reloaded.isFresh(request("Romantic", ""), Duration.ofHours(1)));
+		assertEquals(POOL.size(), reloaded.pick(request("Romantic", "anything"), 10).orElseThrow().size());
+	}
+}
@@ -0,0 +1,59 @@
+package com.moodify.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class YouTubeResultScannerTests {
+
+	private static DataBuffer chunk(String s) {
+		return DefaultDataBufferFactory.sharedInstance.wrap(s.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void findsMarkerSplitAcrossChunks() {
+		YouTubeResultScanner scanner = new YouTubeResultScanner();
+		assertFalse(scanner.feed(chunk("<html>...\"url\":\"/wat")));
+		assertFalse(scanner.feed(chunk("ch?")));
+		assertTrue(scanner.feed(chunk("v=abcdefghijk\"")));
+		assertEquals("abcdefghijk", scanner.videoId());
+	}
+
+	@Test
+	void matchesCaseInsensitively() {
+		YouTubeResultScanner scanner = new YouTubeResultScanner();
+		scanner.feed(chunk("{\"videoRenderer\":{}}"));
+		assertTrue(scanner.found());
+	}
+
+	@Test
+	void capturesFirstVideoIdKeepingItsCase() {
+		YouTubeResultScanner scanner = new YouTubeResultScanner();
+		assertFalse(scanner.feed(chunk("{\"videoRenderer\":{\"videoId\":\"Bdd")));
+		assertTrue(scanner.feed(chunk("P6PYo2gs\",\"thumbnail\":{}} /watch?v=zzzzzzzzzzz")));
+		assertEquals(YouTubeMatch.video("BddP6PYo2gs"), scanner.result());
+	}
+
+	@Test
+	void stopsLookingForAnIdAfterTheWindow() {
+		YouTubeResultScanner scanner = new YouTubeResultScanner();
+		assertFalse(scanner.feed(chunk("\"videoRenderer\":{\"videoId\":\"short\"}")));
+		assertTrue(scanner.feed(chunk(" ".repeat(YouTubeResultScanner.ID_WINDOW))));
+		assertNull(scanner.videoId());
+		assertEquals(YouTubeMatch.FOUND, scanner.result());
+	}
+
+	@Test
+	void noMarkerOnEmptyResultsPage() {
+		YouTubeResultScanner scanner = new YouTubeResultScanner();
+		assertFalse(scanner.feed(chunk("var ytInitialData = {\"contents\":{\"messageRenderer\":\"No results\"}};")));
+		assertFalse(scanner.feed(chunk("/watch?x=1 videorendere")));
+	}
+}
@@ -0,0 +1,34 @@
+package com.moodify.backend.service;
+
+import com.moodify.backend.service.SongCatalogFile.Song;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Build-time tool that packs a TSV song catalog into the memory-mapped format read by
+ * {@link SongCatalog}. Lives outside src/main so it is not shipped in the application jar;
+ * run it through the {@code catalog} Maven profile.
+ */
+public final class PackSongCatalog {
+
+    private PackSongCatalog() {
+    }
+
+    // PackSongCatalog <in.tsv> <out.bin>
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: PackSongCatalog <in.tsv> <out.bin>");
+            System.exit(2);
+        }
+        List<Song> songs;
+        try (InputStream in = Files.newInputStream(Path.of(args[0]))) {
+            songs = SongCatalogFile.readTsv(in);
+        }
+        SongCatalogFile.writePacked(songs, Path.of(args[1]));
+        System.out.println("Packed " + songs.size() + " songs into " + args[1]);
+    }
+}
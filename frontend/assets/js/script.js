@@ -56,71 +56,27 @@ generateButton.addEventListener("click", () => {
   generateButton.disabled = true;
   generateButton.innerText = "Generating...";
 
-  fetch(`${API_BASE_URL}/api/generate`, {
-    method: "POST",
-    headers: {
-      "Content-Type": "application/json"
-    },
-    body: JSON.stringify({
-      mood: selectedMood,
-      era: selectedEra,
-      language: selectedLanguage,
-      feeling: feeling
-    })
-  })
-    .then(response => {
-      if (!response.ok) {
-        throw new Error("Server error");
-      }
-      return response.json();
-    })
-    .then(data => {
-      const resultsContainer = document.getElementById("resultsContainer");
-      resultsContainer.innerHTML = "<h4>🎵 Recommended Songs for You:</h4>";
+  const resultsContainer = document.getElementById("resultsContainer");
+  resultsContainer.innerHTML = "";
+  let grid = null;
 
-      const grid = document.createElement("div");
+  // Songs arrive one by one from the streaming endpoint; the grid is created on the first one
+  const addSong = song => {
+    if (!grid) {
+      resultsContainer.innerHTML = "<h4>🎵 Recommended Songs for You:</h4>";
+      grid = document.createElement("div");
       grid.className = "moodify-grid";
-
-      data.songs.forEach(song => {
-        const parts = song.split(" | ");
-        const title = parts[0] || song;
-        const youTubeLink = parts[1] || '#';
-        const spotifyLink = parts[2] || null;
-
-        const card = document.createElement("div");
-        card.className = "song-card";
-
-        const titleEl = document.createElement("div");
-        titleEl.className = "song-title";
-        titleEl.textContent = title;
-
-        const actions = document.createElement("div");
-        actions.className = "song-actions";
-
-        const ytBtn = document.createElement("a");
-        ytBtn.href = youTubeLink;
-        ytBtn.target = "_blank";
-        ytBtn.className = "btn-yt";
-        ytBtn.textContent = "YouTube";
-
-        actions.appendChild(ytBtn);
-
-        if (spotifyLink) {
-          const spBtn = document.createElement("a");
-          spBtn.href = spotifyLink;
-          spBtn.target = "_blank";
-          spBtn.className = "btn-spotify";
-          spBtn.textContent = "Spotify";
-          actions.appendChild(spBtn);
-        }
-
-        card.appendChild(titleEl);
-        card.appendChild(actions);
-        grid.appendChild(card);
-      });
-
       resultsContainer.appendChild(grid);
-    })
+    }
+    grid.appendChild(createSongCard(song));
+  };
+
+  streamSongs({
+    mood: selectedMood,
+    era: selectedEra,
+    language: selectedLanguage,
+    feeling: feeling
+  }, addSong)
     .catch(async error => {
       console.error(error);
       // Try a backend mock fallback so the UI remains testable while Gemini is down
@@ -138,12 +94,11 @@ generateButton.addEventListener("click", () => {
           const list = document.createElement("ul");
           list.className = "list-group moodify-results";
 
-          data.songs.forEach(song => {
+          tracksOf(data).forEach(track => {
             const item = document.createElement("li");
             item.className = "list-group-item moodify-item";
 
-            const [title, link] = song.split(" | ");
-            item.innerHTML = `<a href="${link}" target="_blank" class="song-link">${title}</a>`;
+            item.innerHTML = `<a href="${youTubeUrl(track)}" target="_blank" class="song-link">${trackTitle(track)}</a>`;
 
             list.appendChild(item);
           });
@@ -162,3 +117,129 @@ generateButton.addEventListener("click", () => {
       generateButton.innerText = "🎶 Generate Songs";
     });
 });
+
+// Structured songs of a response; older responses only have "title | youtubeLink | spotifyLink" strings
+function tracksOf(data) {
+  if (data.tracks) return data.tracks;
+  return (data.songs || []).map(song => {
+    const parts = song.split(" | ");
+    return { title: parts[0] || song, youtubeSearchUrl: parts[1], spotifyUrl: parts[2] };
+  });
+}
+
+function trackTitle(track) {
+  return track.artist ? `${track.title} - ${track.artist}` : track.title;
+}
+
+// Straight to the video when the backend found it, else a YouTube search
+function youTubeUrl(track) {
+  return track.watchUrl || track.youtubeSearchUrl || '#';
+}
+
+// Build one result card from a structured song
+function createSongCard(track) {
+  const title = trackTitle(track);
+  const youTubeLink = youTubeUrl(track);
+  const spotifyLink = track.spotifyUrl || null;
+
+  const card = document.createElement("div");
+  card.className = "song-card";
+
+  const titleEl = document.createElement("div");
+  titleEl.className = "song-title";
+  titleEl.textContent = title;
+
+  const actions = document.createElement("div");
+  actions.className = "song-actions";
+
+  const ytBtn = document.createElement("a");
+  ytBtn.href = youTubeLink;
+  ytBtn.target = "_blank";
+  ytBtn.className = "btn-yt";
+  ytBtn.textContent = "YouTube";
+
+  actions.appendChild(ytBtn);
+
+  if (spotifyLink) {
+    const spBtn = document.createElement("a");
+    spBtn.href = spotifyLink;
+    spBtn.target = "_blank";
+    spBtn.className = "btn-spotify";
+    spBtn.textContent = "Spotify";
+    actions.appendChild(spBtn);
+  }
+
+  card.appendChild(titleEl);
+  card.appendChild(actions);
+  return card;
+}
+
+// Read server-sent events from /api/generate/stream and call onSong for each "track" event (one per song).
+// Falls back to the regular /api/generate endpoint when the browser cannot read response streams.
+async function streamSongs(payload, onSong) {
+  const response = await fetch(`${API_BASE_URL}/api/generate/stream`, {
+    method: "POST",
+    headers: {
+      "Content-Type": "application/json",
+      "Accept": "text/event-stream"
+    },
+    body: JSON.stringify(payload)
+  });
+
+  if (!response.ok) {
+    throw new Error("Server error");
+  }
+
+  if (!response.body || !response.body.getReader) {
+    const fallback = await fetch(`${API_BASE_URL}/api/generate`, {
+      method: "POST",
+      headers: { "Content-Type": "application/json" },
+      body: JSON.stringify(payload)
+    });
+    if (!fallback.ok) {
+      throw new Error("Server error");
+    }
+    const data = await fallback.json();
+    tracksOf(data).forEach(onSong);
+    return;
+  }
+
+  const reader = response.body.getReader();
+  const decoder = new TextDecoder();
+  let buffer = "";
+  let received = 0;
+
+  while (true) {
+    const { value, done } = await reader.read();
+    if (done) break;
+    buffer += decoder.decode(value, { stream: true });
+
+    // Events are separated by a blank line
+    let boundary;
+    while ((boundary = buffer.indexOf("\n\n")) >= 0) {
+      const rawEvent = buffer.slice(0, boundary);
+      buffer = buffer.slice(boundary + 2);
+
+      let eventName = "message";
+      const dataLines = [];
+      rawEvent.split("\n").forEach(line => {
+        if (line.startsWith("event:")) eventName = line.slice(6).trim();
+        else if (line.startsWith("data:")) dataLines.push(line.slice(5).replace(/^ /, ""));
+      });
+      const data = dataLines.join("\n");
+
+      if (eventName === "track") {
+        received++;
+        onSong(JSON.parse(data));
+      } else if (eventName === "error") {
+        throw new Error(data || "Server error");
+      } else if (eventName === "done") {
+        return;
+      }
+    }
+  }
+
+  if (received === 0) {
+    throw new Error("Stream ended without songs");
+  }
+}